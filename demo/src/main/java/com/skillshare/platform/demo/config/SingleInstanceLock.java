@@ -0,0 +1,119 @@
+package com.skillshare.platform.demo.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Enforces that only one application instance runs against the database.
+ *
+ * Several components keep state in process memory that the database does not
+ * share between instances: the follow graph, the active story index, ETag
+ * versions, buffered story views, upload sessions and the open notification
+ * streams, which are only signalled by the instance that dispatches a
+ * notification. Rather than pretend otherwise, the application takes a MySQL
+ * named lock before the web server starts and fails to start if another
+ * instance holds it. The lock lives as long as the connection that took it,
+ * so it is taken on a connection of its own, outside the pool, and checked
+ * periodically.
+ */
+@Component
+@Slf4j
+public class SingleInstanceLock implements SmartInitializingSingleton {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final String lockName;
+    private Connection connection;
+
+    public SingleInstanceLock(
+            DataSourceProperties dataSourceProperties,
+            @Value("${app.instance-lock-name:skillshare-platform}") String lockName) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.lockName = lockName;
+    }
+
+    // Runs once all singletons exist, before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!acquire()) {
+            throw new IllegalStateException("Another instance holds the lock '" + lockName
+                    + "'; this application keeps state in memory and must run as a single instance");
+        }
+        log.info("Acquired instance lock '{}'", lockName);
+    }
+
+    @Scheduled(fixedDelayString = "${app.instance-lock-check-interval-ms:30000}")
+    public synchronized void verify() {
+        try {
+            if (connection != null && !connection.isClosed() && holdsLock()) {
+                return;
+            }
+        } catch (SQLException e) {
+            log.warn("Could not check instance lock '{}': {}", lockName, e.getMessage());
+        }
+        // The connection was lost, and the lock with it; take it back unless another instance got there first
+        if (acquire()) {
+            log.warn("Re-acquired instance lock '{}' after losing its connection", lockName);
+        } else {
+            log.error("Lost instance lock '{}' and another instance now holds it; "
+                    + "in-memory state of the two instances will diverge", lockName);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        closeConnection();
+    }
+
+    private synchronized boolean acquire() {
+        closeConnection();
+        try {
+            connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+            try (PreparedStatement statement = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                statement.setString(1, lockName);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next() && rs.getInt(1) == 1) {
+                        return true;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not take instance lock '{}': {}", lockName, e.getMessage());
+        }
+        closeConnection();
+        return false;
+    }
+
+    private boolean holdsLock() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT IS_USED_LOCK(?) = CONNECTION_ID()")) {
+            statement.setString(1, lockName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            // Ending the session releases the lock
+            connection.close();
+        } catch (SQLException e) {
+            log.debug("Could not close instance lock connection: {}", e.getMessage());
+        }
+        connection = null;
+    }
+}
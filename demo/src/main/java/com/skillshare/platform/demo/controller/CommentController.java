@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 import com.skillshare.platform.demo.dto.CommentDTO;
 import com.skillshare.platform.demo.dto.request.CommentRequest;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.CommentService;
 
@@ -30,6 +31,17 @@ public class CommentController {
         return ResponseEntity.ok(ApiResponse.success(comments));
     }
 
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<CommentDTO>>> getCommentsByPostIdByCursor(
+            @PathVariable Long postId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        CursorPage<CommentDTO> comments = commentService.getCommentsByPostIdByCursor(
+                postId, cursor, CursorPage.clampSize(size), includeTotal);
+        return ResponseEntity.ok(ApiResponse.success(comments));
+    }
+
     @PostMapping
     public ResponseEntity<ApiResponse<CommentDTO>> createComment(
             @PathVariable Long postId,
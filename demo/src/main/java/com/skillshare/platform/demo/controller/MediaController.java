@@ -0,0 +1,178 @@
+package com.skillshare.platform.demo.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UriUtils;
+
+import com.skillshare.platform.demo.service.FileStorageService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves uploaded media.
+ *
+ * Content-addressed files never change, so they get their hash as a strong
+ * ETag and a year-long immutable Cache-Control; older uploads get a weak
+ * ETag from size and modification time and a short max-age. Conditional
+ * requests are answered with 304, single byte ranges are supported for
+ * video seeking, and bodies are written with Tomcat's sendfile when the
+ * connector supports it, falling back to {@link FileChannel#transferTo}.
+ */
+@Controller
+@Slf4j
+public class MediaController {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String IMMUTABLE_CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final FileStorageService fileStorageService;
+    private final String uploadUrl;
+    private final long mutableMaxAgeSeconds;
+
+    public MediaController(
+            FileStorageService fileStorageService,
+            @Value("${file.upload-url:uploads}") String uploadUrl,
+            @Value("${media.serve.max-age-seconds:3600}") long mutableMaxAgeSeconds) {
+        this.fileStorageService = fileStorageService;
+        this.uploadUrl = uploadUrl;
+        this.mutableMaxAgeSeconds = mutableMaxAgeSeconds;
+    }
+
+    // GET mappings also answer HEAD, with the body discarded by the container
+    @GetMapping("/${file.upload-url:uploads}/**")
+    public void serveMedia(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String storageKey = storageKeyOf(request);
+        Path file = storageKey != null ? fileStorageService.findStoredFile(storageKey) : null;
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        boolean immutable = fileStorageService.isImmutable(storageKey);
+        String etag = immutable ? "\"" + baseNameOf(file) + "\"" : "W/\"" + length + "-" + lastModified + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                immutable ? IMMUTABLE_CACHE_CONTROL : "public, max-age=" + mutableMaxAgeSeconds);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers matching conditional requests with 304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .map(Object::toString)
+                .orElse("application/octet-stream"));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        long start = 0;
+        long end = length;
+        HttpRange range = requestedRange(request, etag);
+        if (range != null) {
+            if (length == 0 || range.getRangeStart(length) >= length) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length) + 1;
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+        }
+        response.setContentLengthLong(end - start);
+
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        writeBody(request, response, file, start, end);
+    }
+
+    // The part of the path after /uploads/, or null if it cannot name a stored file
+    private String storageKeyOf(HttpServletRequest request) {
+        String prefix = request.getContextPath() + "/" + uploadUrl + "/";
+        String uri = request.getRequestURI();
+        if (!uri.startsWith(prefix)) {
+            return null;
+        }
+        String storageKey = UriUtils.decode(uri.substring(prefix.length()), StandardCharsets.UTF_8);
+        for (String segment : storageKey.split("/")) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        return storageKey;
+    }
+
+    /**
+     * The single range to serve, or {@code null} for the whole file. Multiple
+     * ranges, malformed headers and an If-Range that no longer matches all fall
+     * back to the full content, which RFC 9110 allows.
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void writeBody(HttpServletRequest request, HttpServletResponse response, Path file,
+                           long start, long end) throws IOException {
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // The connector streams the file from the kernel once this request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, target);
+            }
+        } catch (IOException e) {
+            // Clients routinely abort media downloads, for example when a video is scrolled past
+            log.debug("Media download of {} aborted: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private static String baseNameOf(Path file) {
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -4,13 +4,22 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.skillshare.platform.demo.dto.NotificationDTO;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
+import com.skillshare.platform.demo.security.AuthenticatedUser;
 import com.skillshare.platform.demo.security.CurrentUser;
+import com.skillshare.platform.demo.security.StreamTicketService;
 import com.skillshare.platform.demo.service.NotificationService;
+import com.skillshare.platform.demo.service.NotificationStreamService;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -18,19 +27,82 @@ import com.skillshare.platform.demo.service.NotificationService;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationStreamService notificationStreamService;
+    private final StreamTicketService streamTicketService;
+
+    /**
+     * Issues a ticket for opening the notification stream, which EventSource
+     * cannot authenticate with a header. Each ticket opens one stream, so a
+     * client fetches a new one before every (re)connect.
+     */
+    @PostMapping("/stream/ticket")
+    public ResponseEntity<ApiResponse<String>> createStreamTicket(
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(ApiResponse.success(streamTicketService.issue(principal)));
+    }
+
+    /**
+     * Streams new notifications as Server-Sent Events named "notification",
+     * each with the notification id as its event id. Opened with
+     * {@code ?ticket=} from {@link #createStreamTicket}; since a ticket is
+     * used up by the first connect, clients reconnect with a fresh ticket and
+     * pass the last id they received as the lastEventId parameter, or as the
+     * Last-Event-ID header where they can set it.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNotifications(
+            @CurrentUser Long currentUserId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+            @RequestParam(required = false) Long lastEventId) {
+        return notificationStreamService.connect(currentUserId,
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
 
     @GetMapping
     public ResponseEntity<ApiResponse<Page<NotificationDTO>>> getUserNotifications(
             @CurrentUser Long currentUserId,
-            @PageableDefault(size = 10) Pageable pageable) {
+            @PageableDefault(size = 10) Pageable pageable,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(notificationService.getNotificationsETag(currentUserId, "page", pageable))) {
+            return null;
+        }
         Page<NotificationDTO> notifications = notificationService.getUserNotifications(currentUserId, pageable);
-        return ResponseEntity.ok(ApiResponse.success(notifications));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(notifications));
+    }
+
+    @GetMapping("/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<NotificationDTO>>> getUserNotificationsByCursor(
+            @CurrentUser Long currentUserId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(notificationService.getNotificationsETag(
+                currentUserId, "scroll", cursor, size, includeTotal))) {
+            return null;
+        }
+        CursorPage<NotificationDTO> notifications = notificationService.getUserNotificationsByCursor(
+                currentUserId, cursor, CursorPage.clampSize(size), includeTotal);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(notifications));
     }
 
     @GetMapping("/unread/count")
-    public ResponseEntity<ApiResponse<Long>> getUnreadNotificationsCount(@CurrentUser Long currentUserId) {
+    public ResponseEntity<ApiResponse<Long>> getUnreadNotificationsCount(
+            @CurrentUser Long currentUserId,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(notificationService.getNotificationsETag(currentUserId, "unread"))) {
+            return null;
+        }
         long count = notificationService.getUnreadNotificationsCount(currentUserId);
-        return ResponseEntity.ok(ApiResponse.success(count));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(count));
     }
 
     @PutMapping("/{id}/read")
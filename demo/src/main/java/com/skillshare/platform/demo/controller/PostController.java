@@ -5,14 +5,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.skillshare.platform.demo.dto.PostDTO;
 import com.skillshare.platform.demo.dto.request.PostRequest;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.PostService;
 
@@ -50,11 +53,30 @@ public class PostController {
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
+    // Answers 304 when the page's posts and the viewer's likes are unchanged, without mapping any post
     @GetMapping("/feed")
     public ResponseEntity<ApiResponse<Page<PostDTO>>> getFeedPosts(
             @PageableDefault(size = 10) Pageable pageable,
+            @CurrentUser Long currentUserId,
+            WebRequest webRequest) {
+        Page<Long> postIds = postService.getFeedPostIds(currentUserId, pageable);
+        if (webRequest.checkNotModified(postService.getFeedETag(currentUserId, postIds))) {
+            return null;
+        }
+        Page<PostDTO> posts = postService.getFeedPosts(currentUserId, postIds);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(posts));
+    }
+
+    @GetMapping("/feed/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<PostDTO>>> getFeedPostsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @CurrentUser Long currentUserId) {
-        Page<PostDTO> posts = postService.getFeedPosts(currentUserId, pageable);
+        CursorPage<PostDTO> posts = postService.getFeedPostsByCursor(
+                currentUserId, cursor, CursorPage.clampSize(size), includeTotal);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
 
@@ -0,0 +1,24 @@
+package com.skillshare.platform.demo.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.service.SearchIndexService;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchIndexService searchIndexService;
+
+    @PostMapping("/reindex")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> rebuildIndex() {
+        searchIndexService.rebuildIndex();
+        return ResponseEntity.ok(ApiResponse.success("Search index rebuilt successfully", null));
+    }
+}
@@ -10,8 +10,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -42,9 +44,16 @@ public class StoryController {
     }
 
     @GetMapping("/feed")
-    public ResponseEntity<ApiResponse<List<StoryDTO>>> getFeedStories(@CurrentUser Long currentUserId) {
+    public ResponseEntity<ApiResponse<List<StoryDTO>>> getFeedStories(
+            @CurrentUser Long currentUserId,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(storyService.getFeedStoriesETag(currentUserId))) {
+            return null;
+        }
         List<StoryDTO> stories = storyService.getFeedStories(currentUserId);
-        return ResponseEntity.ok(ApiResponse.success(stories));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(stories));
     }
 
     @PostMapping
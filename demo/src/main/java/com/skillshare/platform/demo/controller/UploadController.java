@@ -0,0 +1,67 @@
+package com.skillshare.platform.demo.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import com.skillshare.platform.demo.dto.UploadDTO;
+import com.skillshare.platform.demo.dto.request.UploadRequest;
+import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.security.CurrentUser;
+import com.skillshare.platform.demo.service.ChunkedUploadService;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/uploads")
+@RequiredArgsConstructor
+public class UploadController {
+
+    private final ChunkedUploadService chunkedUploadService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<UploadDTO>> startUpload(
+            @Valid @RequestBody UploadRequest request,
+            @CurrentUser Long currentUserId) {
+        UploadDTO upload = chunkedUploadService.startUpload(currentUserId, request.getFileName(),
+                request.getContentType(), request.getTotalSize());
+        return ResponseEntity.ok(ApiResponse.success("Upload started", upload));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadDTO>> getUpload(
+            @PathVariable String uploadId,
+            @CurrentUser Long currentUserId) {
+        UploadDTO upload = chunkedUploadService.getUpload(uploadId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success(upload));
+    }
+
+    // The chunk is the raw request body, streamed to disk without multipart parsing
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadDTO>> appendChunk(
+            @PathVariable String uploadId,
+            @RequestHeader("Upload-Offset") long offset,
+            HttpServletRequest request,
+            @CurrentUser Long currentUserId) throws IOException {
+        UploadDTO upload = chunkedUploadService.appendChunk(uploadId, currentUserId, offset, request.getInputStream());
+        return ResponseEntity.ok(ApiResponse.success(upload));
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<UploadDTO>> completeUpload(
+            @PathVariable String uploadId,
+            @CurrentUser Long currentUserId) {
+        UploadDTO upload = chunkedUploadService.completeUpload(uploadId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success("Upload completed", upload));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> cancelUpload(
+            @PathVariable String uploadId,
+            @CurrentUser Long currentUserId) {
+        chunkedUploadService.cancelUpload(uploadId, currentUserId);
+        return ResponseEntity.ok(ApiResponse.success("Upload cancelled", null));
+    }
+}
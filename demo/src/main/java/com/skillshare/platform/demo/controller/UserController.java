@@ -7,7 +7,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.skillshare.platform.demo.dto.UserDTO;
+import com.skillshare.platform.demo.dto.UserSummaryDTO;
 import com.skillshare.platform.demo.dto.response.ApiResponse;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.security.CurrentUser;
 import com.skillshare.platform.demo.service.UserService;
 
@@ -27,7 +29,7 @@ public class UserController {
             @PathVariable String username,
             @CurrentUser Long currentUserId) {
         UserDTO userDTO = userService.getUserByUsername(username);
-        userDTO.setFollowing(userService.isFollowing(currentUserId, userDTO.getId()));
+        userService.applyFollowStatus(currentUserId, List.of(userDTO));
         return ResponseEntity.ok(ApiResponse.success(userDTO));
     }
 
@@ -35,8 +37,7 @@ public class UserController {
     public ResponseEntity<ApiResponse<List<UserDTO>>> searchUsers(
             @RequestParam String query,
             @CurrentUser Long currentUserId) {
-        List<UserDTO> users = userService.searchUsers(query);
-        users.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        List<UserDTO> users = userService.applyFollowStatus(currentUserId, userService.searchUsers(query));
         return ResponseEntity.ok(ApiResponse.success(users));
     }
 
@@ -45,11 +46,11 @@ public class UserController {
             @RequestParam(defaultValue = "5") int limit,
             @CurrentUser Long currentUserId) {
         try {
-            List<UserDTO> users = userService.getSuggestedUsers(limit);
+            List<UserDTO> users = userService.getSuggestedUsers(currentUserId, limit);
             if (users == null || users.isEmpty()) {
                 return ResponseEntity.status(404).body(ApiResponse.error("No suggested users found"));
             }
-            users.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+            userService.applyFollowStatus(currentUserId, users);
             return ResponseEntity.ok(ApiResponse.success(users));
         } catch (Exception e) {
             return ResponseEntity.status(500).body(ApiResponse.error("An error occurred: " + e.getMessage()));
@@ -96,17 +97,41 @@ public class UserController {
     public ResponseEntity<ApiResponse<List<UserDTO>>> getFollowers(
             @PathVariable Long id,
             @CurrentUser Long currentUserId) {
-        List<UserDTO> followers = userService.getFollowers(id);
-        followers.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        List<UserDTO> followers = userService.applyFollowStatus(currentUserId, userService.getFollowers(id));
         return ResponseEntity.ok(ApiResponse.success(followers));
     }
 
+    @GetMapping("/{id}/followers/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<UserSummaryDTO>>> getFollowersByCursor(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<UserSummaryDTO> followers = userService.getFollowersByCursor(id, cursor, CursorPage.clampSize(size));
+        return ResponseEntity.ok(ApiResponse.success(followers));
+    }
+
+    @GetMapping("/{id}/following/scroll")
+    public ResponseEntity<ApiResponse<CursorPage<UserSummaryDTO>>> getFollowingByCursor(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<UserSummaryDTO> following = userService.getFollowingByCursor(id, cursor, CursorPage.clampSize(size));
+        return ResponseEntity.ok(ApiResponse.success(following));
+    }
+
     @GetMapping("/{id}/following")
     public ResponseEntity<ApiResponse<List<UserDTO>>> getFollowing(
             @PathVariable Long id,
             @CurrentUser Long currentUserId) {
-        List<UserDTO> following = userService.getFollowing(id);
-        following.forEach(user -> user.setFollowing(userService.isFollowing(currentUserId, user.getId())));
+        List<UserDTO> following = userService.applyFollowStatus(currentUserId, userService.getFollowing(id));
         return ResponseEntity.ok(ApiResponse.success(following));
     }
+
+    @GetMapping("/{id}/mutuals")
+    public ResponseEntity<ApiResponse<List<UserDTO>>> getMutualFollows(
+            @PathVariable Long id,
+            @CurrentUser Long currentUserId) {
+        List<UserDTO> mutuals = userService.applyFollowStatus(currentUserId, userService.getMutualFollows(id));
+        return ResponseEntity.ok(ApiResponse.success(mutuals));
+    }
 }
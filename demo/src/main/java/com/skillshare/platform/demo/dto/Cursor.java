@@ -0,0 +1,65 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+// Position in a (createdAt DESC, id DESC) ordered list, exchanged with clients as an opaque token
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public final class Cursor {
+
+    // Sorts after every real row, so "before START" is the first page
+    private static final Cursor START = new Cursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime createdAt;
+    private final long id;
+
+    public static Cursor start() {
+        return START;
+    }
+
+    public static Cursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            long micros = Long.parseLong(parts[0]);
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(
+                    Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+            return new Cursor(createdAt, Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    // Tokens for lists ordered by id alone (e.g. follower lists); a blank token starts before the first id
+    public static long decodeId(String token) {
+        if (token == null || token.isBlank()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+
+    public static String encodeId(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String encode() {
+        long micros = createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + createdAt.getNano() / 1_000;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((micros + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -7,6 +7,10 @@ import lombok.NoArgsConstructor;
 
 import com.skillshare.platform.demo.model.Media;
 import com.skillshare.platform.demo.model.MediaType;
+import com.skillshare.platform.demo.service.FileStorageService;
+
+import java.util.Map;
+import java.util.TreeMap;
 
 @Data
 @Builder
@@ -16,6 +20,8 @@ public class MediaDTO {
     private Long id;
     private String url;
     private MediaType type;
+    // Resized copies by width, smallest first; empty until they have been generated
+    private Map<Integer, String> variants;
 
     public static MediaDTO fromMedia(Media media) {
         if (media == null) {
@@ -32,6 +38,18 @@ public class MediaDTO {
                 .id(media.getId())
                 .url(mediaUrl)
                 .type(media.getType())
+                .variants(variantsOf(mediaUrl, media.getVariantWidths()))
                 .build();
     }
+
+    private static Map<Integer, String> variantsOf(String mediaUrl, String variantWidths) {
+        Map<Integer, String> variants = new TreeMap<>();
+        if (variantWidths != null && !variantWidths.isEmpty()) {
+            for (String width : variantWidths.split(",")) {
+                int w = Integer.parseInt(width.trim());
+                variants.put(w, FileStorageService.variantUrlOf(mediaUrl, w));
+            }
+        }
+        return variants;
+    }
 }
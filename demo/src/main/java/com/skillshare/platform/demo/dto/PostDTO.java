@@ -37,8 +37,8 @@ public class PostDTO {
                 .media(post.getMedia().stream()
                         .map(MediaDTO::fromMedia)
                         .collect(Collectors.toList()))
-                .likesCount(post.getLikes().size())
-                .commentsCount(post.getComments().size())
+                .likesCount(post.getLikesCount())
+                .commentsCount(post.getCommentsCount())
                 .createdAt(post.getCreatedAt())
                 .updatedAt(post.getUpdatedAt())
                 .build();
@@ -49,4 +49,19 @@ public class PostDTO {
         dto.setLiked(isLiked);
         return dto;
     }
+
+    public static PostDTO fromPost(Post post, UserDTO user, List<MediaDTO> media, boolean isLiked) {
+        return PostDTO.builder()
+                .id(post.getId())
+                .user(user)
+                .content(post.getContent())
+                .type(post.getType())
+                .media(media)
+                .likesCount(post.getLikesCount())
+                .commentsCount(post.getCommentsCount())
+                .isLiked(isLiked)
+                .createdAt(post.getCreatedAt())
+                .updatedAt(post.getUpdatedAt())
+                .build();
+    }
 }
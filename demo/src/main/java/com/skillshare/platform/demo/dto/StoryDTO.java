@@ -36,7 +36,7 @@ public class StoryDTO {
                 .content(story.getContent())
                 .mediaUrl(story.getMediaUrl())
                 .mediaType(story.getMediaType())
-                .viewsCount(story.getViewers() != null ? story.getViewers().size() : 0)
+                .viewsCount(story.getViewsCount())
                 .createdAt(story.getCreatedAt())
                 .expiresAt(story.getExpiresAt())
                 .build();
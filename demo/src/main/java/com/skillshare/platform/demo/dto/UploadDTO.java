@@ -0,0 +1,22 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadDTO {
+    private String id;
+    private String fileName;
+    private String contentType;
+    private long totalSize;
+    // Bytes received so far; the next chunk must start here
+    private long offset;
+    private boolean completed;
+    private String url;
+    private String sha256;
+}
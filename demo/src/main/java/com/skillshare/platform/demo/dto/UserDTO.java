@@ -36,8 +36,8 @@ public class UserDTO {
                 .avatarUrl(user.getAvatarUrl())
                 .coverImage(user.getCoverImage())
                 .createdAt(user.getCreatedAt())
-                .followersCount(user.getFollowers().size())  // Assuming user.getFollowers() is a collection
-                .followingCount(user.getFollowing().size())  // Assuming user.getFollowing() is a collection
+                .followersCount(user.getFollowersCount())  // Denormalized counter, no follower rows are loaded
+                .followingCount(user.getFollowingCount())  // Denormalized counter, no following rows are loaded
                 .build();
     }
 
@@ -0,0 +1,18 @@
+package com.skillshare.platform.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Minimal user card for follower/following lists, loaded as a JPQL projection rather than a User entity
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDTO {
+    private Long id;
+    private String username;
+    private String name;
+    private String avatarUrl;
+}
@@ -3,6 +3,8 @@ package com.skillshare.platform.demo.dto.request;
 
 import com.skillshare.platform.demo.model.PostType;
 
+import java.util.List;
+
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -21,4 +23,7 @@ public class PostRequest {
     
     @NotNull(message = "Post type is required")
     private PostType type;
+
+    // Ids of completed chunked uploads to attach, in addition to any multipart files
+    private List<String> uploadIds;
 }
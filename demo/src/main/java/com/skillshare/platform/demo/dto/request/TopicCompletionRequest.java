@@ -0,0 +1,18 @@
+package com.skillshare.platform.demo.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicCompletionRequest {
+
+    @NotNull(message = "Completed is required")
+    private Boolean completed;
+
+}
@@ -0,0 +1,26 @@
+package com.skillshare.platform.demo.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadRequest {
+
+    @NotBlank(message = "File name is required")
+    private String fileName;
+
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+
+    @NotNull(message = "Total size is required")
+    @Positive(message = "Total size must be positive")
+    private Long totalSize;
+}
@@ -0,0 +1,46 @@
+package com.skillshare.platform.demo.dto.response;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+import com.skillshare.platform.demo.dto.Cursor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int MAX_SIZE = 50;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    // Only computed when the client asks for it, as it costs a COUNT query
+    private Long totalElements;
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra
+     * row only signals that another page exists and is not returned.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Cursor> cursorOf,
+                                          Function<List<E>, List<T>> mapper, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)).encode() : null;
+        return CursorPage.<T>builder()
+                .content(mapper.apply(pageRows))
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.skillshare.platform.demo.exception;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -15,6 +16,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@Slf4j
 public class GlobalExceptionHandler {
 
     @ExceptionHandler(ResourceNotFoundException.class)
@@ -55,6 +57,7 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiResponse<Object>> handleGlobalException(Exception ex) {
+        log.error("Unhandled exception: {}", ex.getMessage(), ex);
         return new ResponseEntity<>(ApiResponse.error("An unexpected error occurred: " + ex.getMessage()), 
                 HttpStatus.INTERNAL_SERVER_ERROR);
     }
@@ -31,6 +31,10 @@ public class Media {
     @Column(nullable = false)
     private MediaType type;
 
+    // Comma-separated widths of the resized copies generated so far, e.g. "160,480,1080"
+    @Column(name = "variant_widths", length = 64)
+    private String variantWidths;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
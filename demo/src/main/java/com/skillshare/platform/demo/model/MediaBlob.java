@@ -0,0 +1,36 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// A stored media file, keyed by its content-addressed path and shared by every upload of the same bytes
+@Entity
+@Table(name = "media_blobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MediaBlob {
+
+    // Path relative to the upload directory, e.g. "ab/cd/abcd...ef.jpg"
+    @Id
+    @Column(name = "storage_key", length = 100)
+    private String storageKey;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "ref_count", insertable = false, updatable = false, columnDefinition = "INT NOT NULL DEFAULT 0")
+    private Integer refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -44,6 +44,15 @@ public class Post {
     @Builder.Default
     private List<Like> likes = new ArrayList<>();
 
+    // Denormalized counters, maintained by LikeService/CommentService through atomic UPDATEs
+    @Column(name = "likes_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int likesCount;
+
+    @Column(name = "comments_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int commentsCount;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
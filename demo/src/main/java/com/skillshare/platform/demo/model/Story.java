@@ -35,6 +35,7 @@ public class Story {
     @Column(nullable = false)
     private MediaType mediaType;
 
+    // Written only through StoryViewBuffer's INSERT IGNORE batches; never load this set to count or check views
     @ManyToMany
     @JoinTable(
         name = "story_viewers",
@@ -44,6 +45,11 @@ public class Story {
     @Builder.Default
     private Set<User> viewers = new HashSet<>();
 
+    // Denormalized view counter, recomputed by StoryViewBuffer after each flush
+    @Column(name = "views_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int viewsCount;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
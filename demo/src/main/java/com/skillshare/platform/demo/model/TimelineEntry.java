@@ -0,0 +1,46 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// A post materialized into a follower's home timeline (fan-out-on-write)
+@Entity
+@Table(name = "timeline_entries", indexes = {
+        @Index(name = "idx_timeline_user_created", columnList = "user_id, created_at, post_id"),
+        @Index(name = "idx_timeline_post", columnList = "post_id")
+})
+@IdClass(TimelineEntry.TimelineEntryId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "author_id", nullable = false)
+    private Long authorId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TimelineEntryId implements Serializable {
+        private Long userId;
+        private Long postId;
+    }
+}
@@ -76,6 +76,15 @@ public class User implements UserDetails {
     @Builder.Default
     private Set<User> following = new HashSet<>();
 
+    // Denormalized counters, maintained by UserService through atomic UPDATEs
+    @Column(name = "followers_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int followersCount;
+
+    @Column(name = "following_count", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int followingCount;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL)
     @JsonIgnore
     private List<Post> posts;
@@ -0,0 +1,45 @@
+package com.skillshare.platform.demo.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+// A precomputed "who to follow" candidate for a user, refreshed by SuggestionService
+@Entity
+@Table(name = "user_suggestions", indexes = {
+        @Index(name = "idx_suggestions_user_score", columnList = "user_id, score")
+})
+@IdClass(UserSuggestion.UserSuggestionId.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSuggestion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "suggested_user_id")
+    private Long suggestedUserId;
+
+    @Column(nullable = false)
+    private double score;
+
+    @Column(name = "computed_at", nullable = false)
+    private LocalDateTime computedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserSuggestionId implements Serializable {
+        private Long userId;
+        private Long suggestedUserId;
+    }
+}
@@ -2,11 +2,17 @@ package com.skillshare.platform.demo.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.Comment;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     
@@ -15,4 +21,13 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     Page<Comment> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
     long countByPostId(Long postId);
+
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT c FROM Comment c WHERE c.post.id = :postId " +
+            "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+            "ORDER BY c.createdAt DESC, c.id DESC")
+    List<Comment> findByPostIdBefore(@Param("postId") Long postId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
 }
\ No newline at end of file
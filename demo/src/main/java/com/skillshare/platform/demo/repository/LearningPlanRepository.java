@@ -2,17 +2,36 @@ package com.skillshare.platform.demo.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.LearningPlan;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface LearningPlanRepository extends JpaRepository<LearningPlan, Long> {
     
-    List<LearningPlan> findByUserIdOrderByCreatedAtDesc(Long userId);
-    
-    Page<LearningPlan> findByTitleContainingOrderByCreatedAtDesc(String query, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<LearningPlan> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
+    Page<LearningPlan> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
+
+    List<LearningPlan> findByIdIn(Collection<Long> ids);
+
+    // MySQL applies single-table SET clauses left to right, so progress sees the adjusted completed_topics
+    @Modifying
+    @Query(value = "UPDATE learning_plans SET " +
+            "completed_topics = LEAST(GREATEST(completed_topics + :delta, 0), total_topics), " +
+            "progress = IF(total_topics > 0, completed_topics * 100 DIV total_topics, 0), " +
+            "updated_at = NOW(6) " +
+            "WHERE id = :planId", nativeQuery = true)
+    int adjustCompletedTopics(@Param("planId") Long planId, @Param("delta") int delta);
 }
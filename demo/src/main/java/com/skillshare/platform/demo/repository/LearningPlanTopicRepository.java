@@ -3,6 +3,7 @@ package com.skillshare.platform.demo.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.LearningPlanTopic;
@@ -13,4 +14,17 @@ public interface LearningPlanTopicRepository extends JpaRepository<LearningPlanT
     @Modifying
     @Query("DELETE FROM LearningPlanTopic t WHERE t.learningPlan.id = :learningPlanId")
     void deleteByLearningPlanId(Long learningPlanId);
+
+    // Flips the topic only if it belongs to the owner's plan and is not already in the requested state
+    @Modifying
+    @Query(value = "UPDATE learning_plan_topics t JOIN learning_plans p ON p.id = t.learning_plan_id " +
+            "SET t.completed = :completed " +
+            "WHERE t.id = :topicId AND p.id = :planId AND p.user_id = :userId AND t.completed <> :completed",
+            nativeQuery = true)
+    int setCompleted(@Param("planId") Long planId,
+                     @Param("topicId") Long topicId,
+                     @Param("userId") Long userId,
+                     @Param("completed") boolean completed);
+
+    boolean existsByIdAndLearningPlanIdAndLearningPlanUserId(Long id, Long learningPlanId, Long userId);
 }
@@ -1,10 +1,14 @@
 package com.skillshare.platform.demo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.Like;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,4 +21,7 @@ public interface LikeRepository extends JpaRepository<Like, Long> {
     long countByPostId(Long postId);
     
     void deleteByUserIdAndPostId(Long userId, Long postId);
+
+    @Query("SELECT l.post.id FROM Like l WHERE l.user.id = :userId AND l.post.id IN :postIds")
+    List<Long> findLikedPostIds(@Param("userId") Long userId, @Param("postIds") Collection<Long> postIds);
 }
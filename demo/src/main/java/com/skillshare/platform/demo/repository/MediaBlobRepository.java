@@ -0,0 +1,29 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.model.MediaBlob;
+
+@Repository
+public interface MediaBlobRepository extends JpaRepository<MediaBlob, String> {
+
+    // Takes a reference, creating the row for new content; the row stays locked until commit
+    @Modifying
+    @Query(value = "INSERT INTO media_blobs (storage_key, sha256, size, ref_count, created_at) " +
+            "VALUES (:storageKey, :sha256, :size, 1, NOW(6)) " +
+            "ON DUPLICATE KEY UPDATE ref_count = ref_count + 1", nativeQuery = true)
+    int acquire(@Param("storageKey") String storageKey, @Param("sha256") String sha256, @Param("size") long size);
+
+    @Modifying
+    @Query(value = "UPDATE media_blobs SET ref_count = ref_count - 1 WHERE storage_key = :storageKey AND ref_count > 0",
+            nativeQuery = true)
+    int release(@Param("storageKey") String storageKey);
+
+    @Modifying
+    @Query(value = "DELETE FROM media_blobs WHERE storage_key = :storageKey AND ref_count = 0", nativeQuery = true)
+    int deleteIfUnreferenced(@Param("storageKey") String storageKey);
+}
@@ -1,15 +1,26 @@
 package com.skillshare.platform.demo.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.Media;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface MediaRepository extends JpaRepository<Media, Long> {
     
     List<Media> findByPostId(Long postId);
+
+    List<Media> findByPostIdInOrderByIdAsc(Collection<Long> postIds);
     
     void deleteByPostId(Long postId);
+
+    // Every post that shares the stored file gets the variants at once
+    @Modifying
+    @Query("UPDATE Media m SET m.variantWidths = :variantWidths WHERE m.url = :url")
+    int setVariantWidths(@Param("url") String url, @Param("variantWidths") String variantWidths);
 }
@@ -0,0 +1,25 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.model.NotificationOutboxEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutboxEntry, Long> {
+
+    // The scheduled drain of the single application instance (see SingleInstanceLock) is the only reader
+    @Query(value = "SELECT * FROM notification_outbox ORDER BY id LIMIT :limit FOR UPDATE",
+            nativeQuery = true)
+    List<NotificationOutboxEntry> lockOldest(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM notification_outbox WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+}
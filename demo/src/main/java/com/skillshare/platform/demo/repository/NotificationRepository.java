@@ -3,20 +3,48 @@ package com.skillshare.platform.demo.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.Notification;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
     
     @Query("SELECT n FROM Notification n WHERE n.user.id = :userId ORDER BY n.createdAt DESC")
     Page<Notification> findByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId, Pageable pageable);
     
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId " +
+            "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+            "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findByUserIdBefore(@Param("userId") Long userId,
+                                          @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id,
+                                          Pageable pageable);
+
+    // Notifications created after the given id, oldest first, for pushing to open streams
+    @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.id > :afterId ORDER BY n.id ASC")
+    List<Notification> findByUserIdAfterId(@Param("userId") Long userId,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT MAX(n.id) FROM Notification n WHERE n.user.id = :userId")
+    Long findLatestIdByUserId(@Param("userId") Long userId);
+
+    long countByUserId(Long userId);
+
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.read = false")
     long countByUserIdAndReadFalse(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "UPDATE notifications SET is_read = true WHERE user_id = :userId AND is_read = false",
+            nativeQuery = true)
+    int markAllAsRead(@Param("userId") Long userId);
     
     void deleteByUserIdAndReferenceIdAndType(Long userId, Long referenceId, String type);
 }
@@ -2,27 +2,74 @@ package com.skillshare.platform.demo.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.skillshare.platform.demo.model.Post;
 import com.skillshare.platform.demo.model.PostType;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
-    
+
+    @Override
+    @EntityGraph(attributePaths = "user")
+    Page<Post> findAll(Pageable pageable);
+
+    @EntityGraph(attributePaths = "user")
     Page<Post> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
     Page<Post> findByTypeOrderByCreatedAtDesc(PostType type, Pageable pageable);
     
-    @Query("SELECT p FROM Post p WHERE p.user.id IN " +
-            "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
-            "ORDER BY p.createdAt DESC")
-    Page<Post> findFeedPostsByUserId(Long userId, Pageable pageable);
+    @EntityGraph(attributePaths = "user")
+    List<Post> findByIdIn(Collection<Long> ids);
+
+    // Just the columns that change a post's DTO, for building feed ETags without loading the posts
+    @Query("SELECT p.id, p.updatedAt, p.likesCount, p.commentsCount FROM Post p WHERE p.id IN :ids ORDER BY p.id")
+    List<Object[]> findChangeKeysByIdIn(@Param("ids") Collection<Long> ids);
+
+    // (authorId, postCount) for every author that posted since the given time
+    @Query("SELECT p.user.id, COUNT(p) FROM Post p WHERE p.createdAt >= :since GROUP BY p.user.id")
+    List<Object[]> countPostsByAuthorSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT p.id, p.createdAt FROM Post p WHERE p.user.id IN :authorIds " +
+            "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :postId)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Object[]> findPostKeysByAuthorsBefore(@Param("authorIds") Collection<Long> authorIds,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("postId") Long postId,
+                                               Pageable pageable);
+
+    long countByUserIdIn(Collection<Long> userIds);
     
-    @Query("SELECT p FROM Post p WHERE p.content LIKE %:query% ORDER BY p.createdAt DESC")
-    Page<Post> searchPosts(String query, Pageable pageable);
+    @Modifying
+    @Query(value = "UPDATE posts SET likes_count = GREATEST(likes_count + :delta, 0) WHERE id = :postId",
+            nativeQuery = true)
+    int adjustLikesCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts SET comments_count = GREATEST(comments_count + :delta, 0) WHERE id = :postId",
+            nativeQuery = true)
+    int adjustCommentsCount(@Param("postId") Long postId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE posts p LEFT JOIN " +
+            "(SELECT post_id, COUNT(*) AS cnt FROM likes GROUP BY post_id) l ON l.post_id = p.id " +
+            "SET p.likes_count = COALESCE(l.cnt, 0) " +
+            "WHERE p.likes_count <> COALESCE(l.cnt, 0)", nativeQuery = true)
+    int reconcileLikesCounts();
+
+    @Modifying
+    @Query(value = "UPDATE posts p LEFT JOIN " +
+            "(SELECT post_id, COUNT(*) AS cnt FROM comments GROUP BY post_id) c ON c.post_id = p.id " +
+            "SET p.comments_count = COALESCE(c.cnt, 0) " +
+            "WHERE p.comments_count <> COALESCE(c.cnt, 0)", nativeQuery = true)
+    int reconcileCommentsCounts();
 }
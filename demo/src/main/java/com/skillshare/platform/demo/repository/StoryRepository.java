@@ -3,25 +3,43 @@ package com.skillshare.platform.demo.repository;
 import com.skillshare.platform.demo.model.Story;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface StoryRepository extends JpaRepository<Story, Long> {
 
-    @Query("SELECT s FROM Story s WHERE s.user.id IN " +
-           "(SELECT f.id FROM User u JOIN u.following f WHERE u.id = :userId) " +
-           "AND s.expiresAt > :now " +
-           "ORDER BY s.createdAt DESC")
-    List<Story> findStoriesFromFollowedUsers(Long userId, LocalDateTime now);
+    @EntityGraph(attributePaths = "user")
+    List<Story> findByIdIn(Collection<Long> ids);
 
-    List<Story> findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(Long userId, LocalDateTime expiresAt);
+    @Query("SELECT s.id, s.user.id, s.createdAt, s.expiresAt FROM Story s WHERE s.expiresAt > :now")
+    List<Object[]> findActiveStoryKeys(@Param("now") LocalDateTime now);
 
-    List<Story> findByExpiresAtBefore(LocalDateTime expiresAt);
+    @Query(value = "SELECT story_id FROM story_viewers WHERE user_id = :userId AND story_id IN (:storyIds)",
+            nativeQuery = true)
+    List<Long> findViewedStoryIds(@Param("userId") Long userId, @Param("storyIds") Collection<Long> storyIds);
+
+    // Ordered to match idx_stories_expires_id, so each chunk is a short index range scan without a filesort
+    @Query("SELECT s.id, s.mediaUrl FROM Story s WHERE s.expiresAt < :now ORDER BY s.expiresAt, s.id")
+    List<Object[]> findExpiredStoryKeys(@Param("now") LocalDateTime now, Pageable pageable);
+
+    long countByExpiresAtBefore(LocalDateTime expiresAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM story_viewers WHERE story_id IN (:storyIds)", nativeQuery = true)
+    int deleteViewersByStoryIds(@Param("storyIds") Collection<Long> storyIds);
+
+    @Modifying
+    @Query(value = "DELETE FROM stories WHERE id IN (:storyIds)", nativeQuery = true)
+    int deleteByIds(@Param("storyIds") Collection<Long> storyIds);
 
     Page<Story> findByExpiresAtAfter(LocalDateTime expiresAt, Pageable pageable);
 }
@@ -0,0 +1,84 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.model.TimelineEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, TimelineEntry.TimelineEntryId> {
+
+    @Query("SELECT t.postId FROM TimelineEntry t WHERE t.userId = :userId ORDER BY t.createdAt DESC, t.postId DESC")
+    Page<Long> findPostIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT t.postId, t.createdAt FROM TimelineEntry t WHERE t.userId = :userId " +
+            "AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.postId < :postId)) " +
+            "ORDER BY t.createdAt DESC, t.postId DESC")
+    List<Object[]> findEntriesBefore(@Param("userId") Long userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("postId") Long postId,
+                                     Pageable pageable);
+
+    long countByUserId(Long userId);
+
+    // Timeline entries merged with the posts of followed accounts that are read on demand (fan-out-on-read).
+    // A page at :offset can only draw on the newest :offset + :size rows of each source, so the timeline
+    // branch and every pulled author (through the lateral join) are cut off there before they are merged
+    @Query(value = "SELECT x.post_id FROM (" +
+            "(SELECT t.post_id, t.created_at FROM timeline_entries t WHERE t.user_id = :userId " +
+            "ORDER BY t.created_at DESC, t.post_id DESC LIMIT :branchLimit) " +
+            "UNION " +
+            "(SELECT p.id AS post_id, p.created_at FROM users a CROSS JOIN LATERAL (" +
+            "SELECT ap.id, ap.created_at FROM posts ap WHERE ap.user_id = a.id " +
+            "ORDER BY ap.created_at DESC, ap.id DESC LIMIT :branchLimit) p " +
+            "WHERE a.id IN (:authorIds))" +
+            ") x ORDER BY x.created_at DESC, x.post_id DESC LIMIT :size OFFSET :offset",
+            nativeQuery = true)
+    List<Long> findMergedPostIds(@Param("userId") Long userId,
+                                 @Param("authorIds") Collection<Long> authorIds,
+                                 @Param("branchLimit") int branchLimit,
+                                 @Param("offset") long offset,
+                                 @Param("size") int size);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, author_id, created_at) " +
+            "SELECT uf.follower_id, :postId, :authorId, :createdAt FROM user_followers uf " +
+            "WHERE uf.followed_id = :authorId", nativeQuery = true)
+    int fanOutToFollowers(@Param("postId") Long postId,
+                          @Param("authorId") Long authorId,
+                          @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO timeline_entries (user_id, post_id, author_id, created_at) " +
+            "SELECT :userId, p.id, p.user_id, p.created_at FROM posts p " +
+            "WHERE p.user_id = :authorId ORDER BY p.created_at DESC LIMIT :limit", nativeQuery = true)
+    int backfillFromAuthor(@Param("userId") Long userId,
+                           @Param("authorId") Long authorId,
+                           @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.authorId = :authorId")
+    int deleteByUserIdAndAuthorId(@Param("userId") Long userId, @Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query(value = "DELETE t FROM timeline_entries t JOIN (" +
+            "SELECT ranked.user_id, ranked.post_id FROM (" +
+            "SELECT user_id, post_id, ROW_NUMBER() OVER " +
+            "(PARTITION BY user_id ORDER BY created_at DESC, post_id DESC) AS rn FROM timeline_entries" +
+            ") ranked WHERE ranked.rn > :maxLength" +
+            ") old ON old.user_id = t.user_id AND old.post_id = t.post_id", nativeQuery = true)
+    int trimToLength(@Param("maxLength") int maxLength);
+}
@@ -1,10 +1,14 @@
 package com.skillshare.platform.demo.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.skillshare.platform.demo.dto.UserSummaryDTO;
 import com.skillshare.platform.demo.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,12 +23,48 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
 
-    @Query("SELECT u FROM User u WHERE u.username LIKE %:query% OR u.name LIKE %:query%")
-    List<User> searchUsers(String query);
+    List<User> findByIdIn(Collection<Long> ids);
 
-    @Query(value = "SELECT u.* FROM users u " +
-            "LEFT JOIN user_followers uf ON u.id = uf.followed_id " +
-            "GROUP BY u.id " +
-            "ORDER BY COUNT(uf.follower_id) DESC LIMIT :limit", nativeQuery = true)
-    List<User> findTopUsersByFollowers(int limit);
+    @Query("SELECT new com.skillshare.platform.demo.dto.UserSummaryDTO(u.id, u.username, u.name, u.avatarUrl) " +
+            "FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<UserSummaryDTO> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT u.id FROM users u WHERE u.id <> :userId AND NOT EXISTS (" +
+            "SELECT 1 FROM user_followers uf WHERE uf.follower_id = :userId AND uf.followed_id = u.id) " +
+            "ORDER BY u.followers_count DESC, u.id LIMIT :limit", nativeQuery = true)
+    List<Long> findMostFollowedIdsNotFollowedBy(@Param("userId") Long userId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_followers (followed_id, follower_id) VALUES (:followedId, :followerId)",
+            nativeQuery = true)
+    int insertFollow(@Param("followedId") Long followedId, @Param("followerId") Long followerId);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_followers WHERE followed_id = :followedId AND follower_id = :followerId",
+            nativeQuery = true)
+    int deleteFollow(@Param("followedId") Long followedId, @Param("followerId") Long followerId);
+
+    @Modifying
+    @Query(value = "UPDATE users SET followers_count = GREATEST(followers_count + :delta, 0) WHERE id = :userId",
+            nativeQuery = true)
+    int adjustFollowersCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE users SET following_count = GREATEST(following_count + :delta, 0) WHERE id = :userId",
+            nativeQuery = true)
+    int adjustFollowingCount(@Param("userId") Long userId, @Param("delta") int delta);
+
+    @Modifying
+    @Query(value = "UPDATE users u LEFT JOIN " +
+            "(SELECT followed_id, COUNT(*) AS cnt FROM user_followers GROUP BY followed_id) f ON f.followed_id = u.id " +
+            "SET u.followers_count = COALESCE(f.cnt, 0) " +
+            "WHERE u.followers_count <> COALESCE(f.cnt, 0)", nativeQuery = true)
+    int reconcileFollowersCounts();
+
+    @Modifying
+    @Query(value = "UPDATE users u LEFT JOIN " +
+            "(SELECT follower_id, COUNT(*) AS cnt FROM user_followers GROUP BY follower_id) f ON f.follower_id = u.id " +
+            "SET u.following_count = COALESCE(f.cnt, 0) " +
+            "WHERE u.following_count <> COALESCE(f.cnt, 0)", nativeQuery = true)
+    int reconcileFollowingCounts();
 }
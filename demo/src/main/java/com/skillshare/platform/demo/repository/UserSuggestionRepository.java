@@ -0,0 +1,25 @@
+package com.skillshare.platform.demo.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.skillshare.platform.demo.model.UserSuggestion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface UserSuggestionRepository extends JpaRepository<UserSuggestion, UserSuggestion.UserSuggestionId> {
+
+    @Query("SELECT s.suggestedUserId FROM UserSuggestion s WHERE s.userId = :userId ORDER BY s.score DESC")
+    List<Long> findSuggestedUserIds(@Param("userId") Long userId, Pageable pageable);
+
+    // Drops suggestions that the latest refresh did not produce again
+    @Modifying
+    @Query(value = "DELETE FROM user_suggestions WHERE computed_at < :refreshStartedAt", nativeQuery = true)
+    int deleteComputedBefore(@Param("refreshStartedAt") LocalDateTime refreshStartedAt);
+}
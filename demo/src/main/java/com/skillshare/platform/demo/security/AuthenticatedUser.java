@@ -0,0 +1,59 @@
+package com.skillshare.platform.demo.security;
+
+import lombok.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.skillshare.platform.demo.model.Role;
+import com.skillshare.platform.demo.model.User;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lightweight principal for JWT-authenticated requests, built from the token
+ * claims so that authenticating a request needs no database lookup.
+ * {@link CurrentUser} resolves to its {@code id}.
+ */
+@Value
+public class AuthenticatedUser implements UserDetails {
+
+    Long id;
+    String username;
+    Role role;
+
+    public static AuthenticatedUser fromUser(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getPassword() {
+        return null;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package com.skillshare.platform.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Short-lived, single-use tickets for opening the notification stream.
+ *
+ * EventSource cannot send an Authorization header, so the stream is opened
+ * with a ticket in the URL instead of the JWT itself. A ticket is random,
+ * expires after a few seconds and is consumed by its first use, so one that
+ * ends up in an access log or a proxy is worthless by then.
+ */
+@Component
+public class StreamTicketService {
+
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final Cache<String, AuthenticatedUser> tickets;
+
+    public StreamTicketService(
+            @Value("${notifications.stream.ticket-ttl-ms:30000}") long ticketTtlMillis,
+            @Value("${notifications.stream.max-tickets:100000}") long maxTickets) {
+        this.tickets = Caffeine.newBuilder()
+                .maximumSize(maxTickets)
+                .expireAfterWrite(Duration.ofMillis(ticketTtlMillis))
+                .build();
+    }
+
+    public String issue(AuthenticatedUser principal) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, principal);
+        return ticket;
+    }
+
+    // The principal the ticket was issued to, or null if it is unknown, expired or already used
+    public AuthenticatedUser redeem(String ticket) {
+        return tickets.asMap().remove(ticket);
+    }
+}
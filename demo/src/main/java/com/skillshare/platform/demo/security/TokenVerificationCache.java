@@ -0,0 +1,151 @@
+package com.skillshare.platform.demo.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.model.Role;
+import com.skillshare.platform.demo.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches verified JWTs by the SHA-256 hash of the token.
+ *
+ * A cached entry never outlives the token's own {@code exp}, so a hit is
+ * as trustworthy as a full signature check. The principal is built from the
+ * id, subject and role claims; the database is only consulted for tokens
+ * issued before those claims existed, or before {@link #invalidateUser} was
+ * called for the user.
+ */
+@Component
+@Slf4j
+public class TokenVerificationCache {
+
+    private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final Cache<String, VerifiedToken> tokens;
+    // User id -> time of the last invalidation; tokens issued earlier re-resolve their principal
+    private final Cache<Long, Long> invalidations;
+
+    public TokenVerificationCache(
+            JwtService jwtService,
+            UserRepository userRepository,
+            @Value("${jwt.cache.max-size:100000}") long maxSize,
+            @Value("${jwt.cache.max-ttl-ms:900000}") long maxTtlMillis,
+            @Value("${jwt.expiration}") long jwtExpiration) {
+        this.jwtService = jwtService;
+        this.userRepository = userRepository;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken token, long currentTime) {
+                        long untilExpiry = token.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, Math.min(untilExpiry, maxTtlMillis)));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, token, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.invalidations = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(jwtExpiration))
+                .build();
+    }
+
+    /**
+     * Returns the principal for a valid token, or {@code null} if the token is
+     * invalid, expired or belongs to a user that no longer exists.
+     */
+    public AuthenticatedUser verify(String token) {
+        String key = hash(token);
+        VerifiedToken cached = tokens.getIfPresent(key);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            return cached.principal();
+        }
+
+        Claims claims;
+        try {
+            claims = jwtService.parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+
+        AuthenticatedUser principal = resolvePrincipal(claims);
+        if (principal != null) {
+            tokens.put(key, new VerifiedToken(principal, claims.getExpiration().getTime()));
+        }
+        return principal;
+    }
+
+    /**
+     * Drops cached principals of the user once the current transaction commits,
+     * so the next request re-reads the updated username and role.
+     */
+    public void invalidateUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictUser(userId);
+                }
+            });
+        } else {
+            evictUser(userId);
+        }
+    }
+
+    private void evictUser(Long userId) {
+        invalidations.put(userId, System.currentTimeMillis());
+        tokens.asMap().values().removeIf(token -> token.principal().getId().equals(userId));
+    }
+
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        Long userId = claims.get("id", Long.class);
+        String role = claims.get("role", String.class);
+        Long invalidatedAt = userId != null ? invalidations.getIfPresent(userId) : null;
+        boolean stale = invalidatedAt != null
+                && (claims.getIssuedAt() == null || claims.getIssuedAt().getTime() <= invalidatedAt);
+
+        if (userId != null && role != null && !stale) {
+            return new AuthenticatedUser(userId, claims.getSubject(), Role.valueOf(role));
+        }
+
+        return (userId != null ? userRepository.findById(userId) : userRepository.findByUsername(claims.getSubject()))
+                .map(AuthenticatedUser::fromUser)
+                .orElse(null);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(AuthenticatedUser principal, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,183 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.model.Story;
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of active (unexpired) stories per author.
+ *
+ * Expiry is driven by a hashed timing wheel keyed on {@link Story#getExpiresAt()}:
+ * every tick only the one slot whose time has come is inspected, so stories
+ * drop out of the index without polling the database. Lookups also re-check
+ * the expiry time, so a story is never served past its expiresAt even between ticks.
+ * The index is loaded before the web server starts, so no request sees it half filled.
+ */
+@Component
+@Slf4j
+public class ActiveStoryIndex implements SmartInitializingSingleton {
+
+    private static final Comparator<StoryEntry> NEWEST_FIRST = Comparator
+            .comparing(StoryEntry::createdAt).reversed()
+            .thenComparing(Comparator.comparingLong(StoryEntry::storyId).reversed());
+
+    private final StoryRepository storyRepository;
+    private final long tickMillis;
+    private final List<Set<StoryEntry>> wheel;
+
+    private final Map<Long, StoryEntry> entriesById = new ConcurrentHashMap<>();
+    private final Map<Long, ConcurrentSkipListSet<StoryEntry>> entriesByAuthor = new ConcurrentHashMap<>();
+    private volatile long currentTick;
+
+    public ActiveStoryIndex(
+            StoryRepository storyRepository,
+            @Value("${stories.wheel-tick-ms:60000}") long tickMillis,
+            @Value("${stories.wheel-size:512}") int wheelSize) {
+        this.storyRepository = storyRepository;
+        this.tickMillis = tickMillis;
+        this.wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(ConcurrentHashMap.newKeySet());
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    // Runs once all singletons exist, before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    public void load() {
+        List<Object[]> rows = storyRepository.findActiveStoryKeys(LocalDateTime.now());
+        for (Object[] row : rows) {
+            add(new StoryEntry(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    (LocalDateTime) row[2], (LocalDateTime) row[3]));
+        }
+        log.info("Loaded {} active stories into the story index", rows.size());
+    }
+
+    public void storyCreated(Story story) {
+        StoryEntry entry = new StoryEntry(story.getId(), story.getUser().getId(),
+                story.getCreatedAt(), story.getExpiresAt());
+        afterCommit(() -> add(entry));
+    }
+
+    public void storyDeleted(Long storyId) {
+        afterCommit(() -> remove(storyId));
+    }
+
+    public boolean hasActiveStories(Long userId) {
+        Set<StoryEntry> entries = entriesByAuthor.get(userId);
+        if (entries == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return entries.stream().anyMatch(entry -> entry.expiresAt().isAfter(now));
+    }
+
+    // Active story ids of the given authors, newest first
+    public List<Long> getActiveStoryIds(Collection<Long> authorIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StoryEntry> active = new ArrayList<>();
+        for (Long authorId : authorIds) {
+            Set<StoryEntry> entries = entriesByAuthor.get(authorId);
+            if (entries != null) {
+                entries.stream().filter(entry -> entry.expiresAt().isAfter(now)).forEach(active::add);
+            }
+        }
+        active.sort(NEWEST_FIRST);
+        return active.stream().map(StoryEntry::storyId).toList();
+    }
+
+    @Scheduled(fixedRateString = "${stories.wheel-tick-ms:60000}")
+    public void advance() {
+        long now = System.currentTimeMillis() / tickMillis;
+        long from = Math.max(currentTick + 1, now - wheel.size() + 1);
+        int evicted = 0;
+        for (long tick = from; tick <= now; tick++) {
+            Set<StoryEntry> slot = wheel.get((int) (tick % wheel.size()));
+            for (StoryEntry entry : slot) {
+                // Entries more than one rotation away share the slot and stay until their own tick
+                if (entry.expiryTick(tickMillis) <= now) {
+                    slot.remove(entry);
+                    evict(entry);
+                    evicted++;
+                }
+            }
+        }
+        currentTick = now;
+        if (evicted > 0) {
+            log.debug("Evicted {} expired stories from the story index", evicted);
+        }
+    }
+
+    private void add(StoryEntry entry) {
+        long expiryTick = entry.expiryTick(tickMillis);
+        if (expiryTick <= currentTick) {
+            return;
+        }
+        entriesById.put(entry.storyId(), entry);
+        entriesByAuthor.compute(entry.authorId(), (authorId, entries) -> {
+            ConcurrentSkipListSet<StoryEntry> set = entries != null ? entries : new ConcurrentSkipListSet<>(NEWEST_FIRST);
+            set.add(entry);
+            return set;
+        });
+        wheel.get((int) (expiryTick % wheel.size())).add(entry);
+    }
+
+    private void remove(Long storyId) {
+        StoryEntry entry = entriesById.get(storyId);
+        if (entry != null) {
+            wheel.get((int) (entry.expiryTick(tickMillis) % wheel.size())).remove(entry);
+            evict(entry);
+        }
+    }
+
+    private void evict(StoryEntry entry) {
+        entriesById.remove(entry.storyId(), entry);
+        entriesByAuthor.computeIfPresent(entry.authorId(), (authorId, entries) -> {
+            entries.remove(entry);
+            return entries.isEmpty() ? null : entries;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record StoryEntry(long storyId, long authorId, LocalDateTime createdAt, LocalDateTime expiresAt) {
+
+        long expiryTick(long tickMillis) {
+            long expiresAtMillis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return Math.floorDiv(expiresAtMillis + tickMillis - 1, tickMillis);
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final SearchIndexService searchIndexService;
 
     @Transactional
     public AuthResponse register(RegisterRequest request) {
@@ -50,6 +51,7 @@ public class AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        searchIndexService.indexUser(savedUser);
         String token = jwtService.generateToken(savedUser);
 
         return AuthResponse.builder()
@@ -0,0 +1,86 @@
+package com.skillshare.platform.demo.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user change counters for building ETags of polled endpoints.
+ *
+ * Every change a user can observe bumps their version in the relevant scope
+ * once it commits, so a poll can be answered with 304 after comparing
+ * versions, without loading or mapping anything. Versions are drawn from
+ * one global sequence: a user whose entry was evicted, or who is seen for the
+ * first time, gets a fresh value that no earlier ETag can carry. ETags also
+ * include an id of this process, so a restart never reuses an old tag.
+ * Versions are not shared between processes, which SingleInstanceLock
+ * guarantees there is only one of.
+ */
+@Component
+public class ChangeVersions {
+
+    public enum Scope {
+        // Notifications delivered to, read or removed by the user
+        NOTIFICATIONS,
+        // Likes given by the user, which change isLiked flags on their feed
+        LIKES,
+        // Stories viewed by the user, which change viewed flags on their story feed
+        STORY_VIEWS
+    }
+
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<Key, Long> versions;
+
+    public ChangeVersions(@Value("${etags.max-tracked-users:1000000}") long maxTrackedUsers) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxTrackedUsers)
+                .build();
+    }
+
+    public long version(Scope scope, Long userId) {
+        return versions.get(new Key(scope, userId), key -> sequence.incrementAndGet());
+    }
+
+    // Takes effect once the current transaction commits, so readers never see a version ahead of the data
+    public void bump(Scope scope, Long userId) {
+        Key key = new Key(scope, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.put(key, sequence.incrementAndGet());
+                }
+            });
+        } else {
+            versions.put(key, sequence.incrementAndGet());
+        }
+    }
+
+    /**
+     * A strong ETag over the given parts, which should identify everything the
+     * response depends on. Arrays are compared by content.
+     */
+    public String etag(Object... parts) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(Arrays.deepToString(parts).getBytes(StandardCharsets.UTF_8));
+            return "\"" + instanceId + "-" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record Key(Scope scope, Long userId) {
+    }
+}
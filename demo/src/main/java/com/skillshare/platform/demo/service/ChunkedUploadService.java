@@ -0,0 +1,263 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.skillshare.platform.demo.dto.UploadDTO;
+import com.skillshare.platform.demo.exception.ResourceNotFoundException;
+import com.skillshare.platform.demo.service.FileStorageService.StoredFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Resumable uploads for large media, sent as raw request bodies in chunks.
+ *
+ * Each chunk is appended straight to a partial file on disk and hashed as it
+ * is written, so neither the servlet container nor the heap ever holds a
+ * whole video. A chunk must start where the previous one ended; after a
+ * dropped connection the client asks for the current offset and carries on
+ * from there. Completed uploads are claimed by id when a post is created,
+ * and uploads that are abandoned or never claimed are removed after a while.
+ */
+@Service
+@Slf4j
+public class ChunkedUploadService {
+
+    private final FileStorageService fileStorageService;
+    private final long maxUploadSize;
+    private final long sessionTtlMillis;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(
+            FileStorageService fileStorageService,
+            @Value("${file.upload.max-size:20971520}") long maxUploadSize,
+            @Value("${file.upload.session-ttl-ms:86400000}") long sessionTtlMillis) {
+        this.fileStorageService = fileStorageService;
+        this.maxUploadSize = maxUploadSize;
+        this.sessionTtlMillis = sessionTtlMillis;
+    }
+
+    public UploadDTO startUpload(Long userId, String fileName, String contentType, long totalSize) {
+        if (contentType == null || !(contentType.startsWith("image/") || contentType.startsWith("video/"))) {
+            throw new IllegalArgumentException("Only image and video uploads are supported");
+        }
+        if (totalSize <= 0 || totalSize > maxUploadSize) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxUploadSize + " bytes");
+        }
+        String fileExtension = fileStorageService.extensionOf(fileName);
+
+        Path partial;
+        try {
+            partial = fileStorageService.createPartialFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start upload", e);
+        }
+        UploadSession session = new UploadSession(UUID.randomUUID().toString(), userId, fileName,
+                fileExtension, contentType, totalSize, partial);
+        sessions.put(session.id, session);
+        log.debug("Started upload {} of {} bytes for user {}", session.id, totalSize, userId);
+        return session.toDTO();
+    }
+
+    public UploadDTO getUpload(String uploadId, Long userId) {
+        return getSession(uploadId, userId).toDTO();
+    }
+
+    /**
+     * Appends a chunk starting at {@code offset}, which must equal the number of
+     * bytes received so far. Bytes written before a failure are kept, so the
+     * reported offset is always a valid place to resume from.
+     */
+    public UploadDTO appendChunk(String uploadId, Long userId, long offset, InputStream body) {
+        UploadSession session = getSession(uploadId, userId);
+        synchronized (session) {
+            if (session.result != null) {
+                throw new IllegalArgumentException("Upload " + uploadId + " is already complete");
+            }
+            if (offset != session.received) {
+                throw new IllegalArgumentException("Expected chunk at offset " + session.received + " but got " + offset);
+            }
+            try (FileChannel out = FileChannel.open(session.partial, StandardOpenOption.WRITE)) {
+                out.position(session.received);
+                try {
+                    fileStorageService.transfer(body, out, session.digest, session.totalSize - session.received,
+                            written -> session.received += written);
+                } finally {
+                    // Drop any half-written buffer so the file always matches the digest
+                    out.truncate(session.received);
+                }
+            } catch (IOException e) {
+                log.debug("Chunk of upload {} interrupted at offset {}: {}", uploadId, session.received, e.getMessage());
+            } finally {
+                session.touch();
+            }
+            return session.toDTO();
+        }
+    }
+
+    public UploadDTO completeUpload(String uploadId, Long userId) {
+        UploadSession session = getSession(uploadId, userId);
+        synchronized (session) {
+            if (session.result == null) {
+                if (session.received != session.totalSize) {
+                    throw new IllegalArgumentException("Upload " + uploadId + " has " + session.received
+                            + " of " + session.totalSize + " bytes");
+                }
+                try {
+                    session.result = fileStorageService.promote(session.partial, session.fileExtension,
+                            session.contentType, session.digest, session.received);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not complete upload " + uploadId, e);
+                }
+                log.debug("Completed upload {} as {}", uploadId, session.result.url());
+            }
+            session.touch();
+            return session.toDTO();
+        }
+    }
+
+    public void cancelUpload(String uploadId, Long userId) {
+        UploadSession session = getSession(uploadId, userId);
+        sessions.remove(uploadId);
+        discard(session);
+    }
+
+    /**
+     * Hands the stored files of completed uploads over to the caller, which from
+     * then on owns them. Unknown, foreign, unfinished or repeated uploads are
+     * rejected, as is the whole claim if another request claims or cancels one
+     * of the uploads meanwhile; the uploads taken so far are then put back.
+     */
+    public List<StoredFile> claimUploads(Collection<String> uploadIds, Long userId) {
+        List<StoredFile> files = new ArrayList<>();
+        if (uploadIds == null) {
+            return files;
+        }
+        Set<String> seen = new HashSet<>();
+        for (String uploadId : uploadIds) {
+            UploadSession session = getSession(uploadId, userId);
+            if (session.result == null) {
+                throw new IllegalArgumentException("Upload " + uploadId + " is not complete");
+            }
+            if (!seen.add(uploadId)) {
+                throw new IllegalArgumentException("Upload " + uploadId + " is listed more than once");
+            }
+        }
+        List<UploadSession> claimed = new ArrayList<>();
+        for (String uploadId : uploadIds) {
+            UploadSession session = sessions.remove(uploadId);
+            if (session == null) {
+                claimed.forEach(taken -> sessions.putIfAbsent(taken.id, taken));
+                throw new ResourceNotFoundException("Upload not found with id: " + uploadId);
+            }
+            claimed.add(session);
+            files.add(session.result);
+        }
+        return files;
+    }
+
+    @Scheduled(fixedDelayString = "${file.upload.cleanup-interval-ms:600000}")
+    public void removeExpiredUploads() {
+        long cutoff = System.currentTimeMillis() - sessionTtlMillis;
+        int removed = 0;
+        for (UploadSession session : sessions.values()) {
+            if (session.lastActivity < cutoff && sessions.remove(session.id, session)) {
+                discard(session);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("Removed {} abandoned uploads", removed);
+        }
+
+        // Sessions live in memory, so files of uploads interrupted by a restart have no session to expire them
+        Set<Path> inUse = sessions.values().stream().map(session -> session.partial).collect(Collectors.toSet());
+        int orphaned = fileStorageService.removeStalePartialFiles(cutoff, inUse);
+        if (orphaned > 0) {
+            log.info("Removed {} orphaned partial upload files", orphaned);
+        }
+    }
+
+    private UploadSession getSession(String uploadId, Long userId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null || !session.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Upload not found with id: " + uploadId);
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        synchronized (session) {
+            try {
+                if (session.result != null) {
+                    fileStorageService.deleteFile(session.result.url());
+                } else {
+                    Files.deleteIfExists(session.partial);
+                }
+            } catch (IOException e) {
+                log.warn("Could not delete files of upload {}: {}", session.id, e.getMessage());
+            }
+        }
+    }
+
+    private static class UploadSession {
+        private final String id;
+        private final Long userId;
+        private final String fileName;
+        private final String fileExtension;
+        private final String contentType;
+        private final long totalSize;
+        private final Path partial;
+        private final MessageDigest digest = FileStorageService.newDigest();
+        private long received;
+        private StoredFile result;
+        private volatile long lastActivity = System.currentTimeMillis();
+
+        private UploadSession(String id, Long userId, String fileName, String fileExtension,
+                              String contentType, long totalSize, Path partial) {
+            this.id = id;
+            this.userId = userId;
+            this.fileName = fileName;
+            this.fileExtension = fileExtension;
+            this.contentType = contentType;
+            this.totalSize = totalSize;
+            this.partial = partial;
+        }
+
+        private void touch() {
+            lastActivity = System.currentTimeMillis();
+        }
+
+        private synchronized UploadDTO toDTO() {
+            return UploadDTO.builder()
+                    .id(id)
+                    .fileName(fileName)
+                    .contentType(contentType)
+                    .totalSize(totalSize)
+                    .offset(received)
+                    .completed(result != null)
+                    .url(result != null ? result.url() : null)
+                    .sha256(result != null ? result.sha256() : null)
+                    .build();
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.skillshare.platform.demo.dto.CommentDTO;
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.request.CommentRequest;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Comment;
 import com.skillshare.platform.demo.model.NotificationType;
@@ -18,6 +21,9 @@ import com.skillshare.platform.demo.repository.CommentRepository;
 import com.skillshare.platform.demo.repository.PostRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -27,12 +33,24 @@ public class CommentService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final DtoCache dtoCache;
 
     public Page<CommentDTO> getCommentsByPostId(Long postId, Pageable pageable) {
         Page<Comment> comments = commentRepository.findByPostIdOrderByCreatedAtDesc(postId, pageable);
         return comments.map(CommentDTO::fromComment);
     }
 
+    public CursorPage<CommentDTO> getCommentsByPostIdByCursor(Long postId, String cursor, int size, boolean includeTotal) {
+        Cursor position = Cursor.decode(cursor);
+        List<Comment> comments = commentRepository.findByPostIdBefore(
+                postId, position.getCreatedAt(), position.getId(), PageRequest.of(0, size + 1));
+        Long totalElements = includeTotal ? commentRepository.countByPostId(postId) : null;
+        return CursorPage.of(comments, size,
+                comment -> new Cursor(comment.getCreatedAt(), comment.getId()),
+                pageComments -> pageComments.stream().map(CommentDTO::fromComment).collect(Collectors.toList()),
+                totalElements);
+    }
+
     @Transactional
     public CommentDTO createComment(Long postId, CommentRequest commentRequest, Long userId) {
         log.info("Creating comment for post {} by user {}", postId, userId);
@@ -53,23 +71,13 @@ public class CommentService {
                     .build();
 
             Comment savedComment = commentRepository.save(comment);
+            postRepository.adjustCommentsCount(postId, 1);
+            dtoCache.evict(DtoCache.Region.POST, postId);
             log.info("Comment saved successfully with id: {}", savedComment.getId());
 
             // Send notification to post owner if it's not the same user
             if (!post.getUser().getId().equals(userId)) {
-                try {
-                    log.info("Attempting to create notification for user: {}", post.getUser().getId());
-                    notificationService.createNotification(
-                            post.getUser().getId(),
-                            user.getUsername() + " commented on your post",
-                            NotificationType.COMMENT,
-                            post.getId()
-                    );
-                    log.info("Notification created successfully");
-                } catch (Exception e) {
-                    // Log the error but don't fail the comment creation
-                    log.error("Failed to create notification: {}", e.getMessage(), e);
-                }
+                notificationService.enqueueNotification(post.getUser().getId(), user, NotificationType.COMMENT, post.getId());
             }
 
             return CommentDTO.fromComment(savedComment);
@@ -108,6 +116,8 @@ public class CommentService {
         }
 
         commentRepository.delete(comment);
+        postRepository.adjustCommentsCount(comment.getPost().getId(), -1);
+        dtoCache.evict(DtoCache.Region.POST, comment.getPost().getId());
     }
 
     public CommentDTO getCommentById(Long id) {
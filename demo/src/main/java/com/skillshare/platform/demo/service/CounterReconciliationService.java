@@ -0,0 +1,40 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.repository.PostRepository;
+import com.skillshare.platform.demo.repository.UserRepository;
+
+/**
+ * Periodically recomputes the denormalized like/comment/follower counters from
+ * their source tables and repairs any rows that have drifted.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CounterReconciliationService {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+
+    @Scheduled(initialDelayString = "${counters.reconcile-initial-delay-ms:60000}",
+            fixedDelayString = "${counters.reconcile-interval-ms:3600000}")
+    @Transactional
+    public void reconcileCounters() {
+        int likes = postRepository.reconcileLikesCounts();
+        int comments = postRepository.reconcileCommentsCounts();
+        int followers = userRepository.reconcileFollowersCounts();
+        int following = userRepository.reconcileFollowingCounts();
+
+        if (likes + comments + followers + following > 0) {
+            log.warn("Repaired counter drift: {} likes, {} comments, {} followers, {} following rows",
+                    likes, comments, followers, following);
+        } else {
+            log.debug("Counter reconciliation found no drift");
+        }
+    }
+}
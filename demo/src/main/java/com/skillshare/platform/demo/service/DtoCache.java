@@ -0,0 +1,177 @@
+package com.skillshare.platform.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Shared cache of viewer-independent DTOs, stored as serialized JSON.
+ *
+ * Every read deserializes a fresh copy, so callers can overlay per-viewer
+ * flags such as isLiked or isFollowing without affecting other viewers.
+ * Entries are bounded by their serialized size and evicted by Caffeine's
+ * W-TinyLFU policy. Mutating service methods evict the affected entries both
+ * immediately and again after their transaction commits. Each eviction also
+ * records a sequence number, and a read only caches what it loaded if no
+ * eviction of that key happened since it started, so a read that loaded the
+ * row before a writer committed cannot re-cache the old state. Counters
+ * changed without an explicit eviction, such as story views, are bounded by
+ * the entry TTL.
+ */
+@Component
+@Slf4j
+public class DtoCache {
+
+    public enum Region {
+        POST, USER, LEARNING_PLAN, STORY
+    }
+
+    // Evictions older than this cannot race with a load still in flight
+    private static final Duration MIN_EVICTION_MEMORY = Duration.ofMinutes(1);
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, byte[]> cache;
+    private final AtomicLong sequence = new AtomicLong();
+    // Sequence number of the latest eviction of each recently evicted key
+    private final Cache<Key, Long> evictedAt;
+
+    public DtoCache(
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${dto-cache.max-bytes:67108864}") long maxBytes,
+            @Value("${dto-cache.ttl-ms:60000}") long ttlMillis) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, byte[] json) -> json.length)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .recordStats()
+                .build();
+        Duration ttl = Duration.ofMillis(ttlMillis);
+        this.evictedAt = Caffeine.newBuilder()
+                .expireAfterWrite(ttl.compareTo(MIN_EVICTION_MEMORY) > 0 ? ttl : MIN_EVICTION_MEMORY)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "dto");
+    }
+
+    public <T> T get(Region region, Object id, Class<T> type, Supplier<T> loader) {
+        Key key = new Key(region, id);
+        byte[] json = cache.getIfPresent(key);
+        if (json != null) {
+            return read(json, type);
+        }
+        long loadStarted = sequence.get();
+        T value = loader.get();
+        putIfNotEvicted(key, write(value), loadStarted);
+        return value;
+    }
+
+    /**
+     * Looks up several entries at once and loads all misses with one call to
+     * {@code loader}, which returns the found values by id. Results keep the
+     * order of {@code ids}; ids the loader did not return are left out.
+     */
+    public <T> List<T> getAll(Region region, List<Long> ids, Class<T> type, Function<List<Long>, Map<Long, T>> loader) {
+        Map<Long, T> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            byte[] json = cache.getIfPresent(new Key(region, id));
+            if (json != null) {
+                found.put(id, read(json, type));
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadStarted = sequence.get();
+            loader.apply(missing).forEach((id, value) -> {
+                putIfNotEvicted(new Key(region, id), write(value), loadStarted);
+                found.put(id, value);
+            });
+        }
+
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T value = found.get(id);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    public void evict(Region region, Object id) {
+        Key key = new Key(region, id);
+        invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(key);
+                }
+            });
+        }
+    }
+
+    private void invalidate(Key key) {
+        evictedAt.put(key, sequence.incrementAndGet());
+        cache.invalidate(key);
+    }
+
+    /**
+     * Caches a value loaded since {@code loadStarted} unless the key was evicted
+     * in the meantime. The check is repeated after the put, since an eviction
+     * landing between check and put would otherwise be undone by it.
+     */
+    private void putIfNotEvicted(Key key, byte[] json, long loadStarted) {
+        if (evictedSince(key, loadStarted)) {
+            return;
+        }
+        cache.put(key, json);
+        if (evictedSince(key, loadStarted)) {
+            cache.asMap().remove(key, json);
+        }
+    }
+
+    private boolean evictedSince(Key key, long loadStarted) {
+        Long evicted = evictedAt.getIfPresent(key);
+        return evicted != null && evicted > loadStarted;
+    }
+
+    private byte[] write(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + value.getClass().getSimpleName() + " for caching", e);
+        }
+    }
+
+    private <T> T read(byte[] json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not deserialize cached " + type.getSimpleName(), e);
+        }
+    }
+
+    private record Key(Region region, Object id) {
+    }
+}
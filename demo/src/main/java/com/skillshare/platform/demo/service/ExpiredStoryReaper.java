@@ -0,0 +1,170 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired stories in fixed-size chunks.
+ *
+ * Each chunk runs in its own short transaction that bulk-deletes the viewer
+ * rows and the stories by id, so no run ever holds every expired story in one
+ * persistence context. Media files are removed after the chunk commits on a
+ * small dedicated I/O pool that never blocks the database work.
+ */
+@Service
+@Slf4j
+public class ExpiredStoryReaper {
+
+    private final StoryRepository storyRepository;
+    private final FileStorageService fileStorageService;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor fileDeleteExecutor;
+    private final int chunkSize;
+    private final int maxChunksPerRun;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter storiesDeleted;
+    private final Counter filesDeleted;
+    private final Counter fileDeleteFailures;
+    private final Timer runTimer;
+
+    public ExpiredStoryReaper(
+            StoryRepository storyRepository,
+            FileStorageService fileStorageService,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${stories.reaper.chunk-size:500}") int chunkSize,
+            @Value("${stories.reaper.max-chunks-per-run:200}") int maxChunksPerRun,
+            @Value("${stories.reaper.file-threads:2}") int fileThreads,
+            @Value("${stories.reaper.file-queue-capacity:10000}") int fileQueueCapacity) {
+        this.storyRepository = storyRepository;
+        this.fileStorageService = fileStorageService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxChunksPerRun = maxChunksPerRun;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // A full queue makes the reaper thread delete files itself, which throttles the next chunk
+        this.fileDeleteExecutor = new ThreadPoolExecutor(fileThreads, fileThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(fileQueueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "story-file-reaper-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        Gauge.builder("stories.reaper.backlog", backlog, AtomicLong::get)
+                .description("Expired stories still waiting to be deleted")
+                .register(meterRegistry);
+        Gauge.builder("stories.reaper.file.queue", fileDeleteExecutor, executor -> executor.getQueue().size())
+                .description("Media files queued for deletion")
+                .register(meterRegistry);
+        this.storiesDeleted = Counter.builder("stories.reaper.deleted")
+                .description("Expired stories deleted")
+                .register(meterRegistry);
+        this.filesDeleted = Counter.builder("stories.reaper.files.deleted")
+                .description("Story media files deleted")
+                .register(meterRegistry);
+        this.fileDeleteFailures = Counter.builder("stories.reaper.files.failed")
+                .description("Story media files that could not be deleted")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("stories.reaper.run")
+                .description("Duration of a reaper run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${stories.reaper.initial-delay-ms:120000}",
+            fixedDelayString = "${stories.reaper.interval-ms:300000}")
+    public void reapExpiredStories() {
+        runTimer.record(this::reap);
+    }
+
+    private void reap() {
+        LocalDateTime now = LocalDateTime.now();
+        backlog.set(storyRepository.countByExpiresAtBefore(now));
+
+        int total = 0;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            int deleted;
+            try {
+                deleted = reapChunk(now);
+            } catch (RuntimeException e) {
+                log.error("Expired story chunk failed, retrying on the next run: {}", e.getMessage(), e);
+                break;
+            }
+            total += deleted;
+            backlog.addAndGet(-deleted);
+            if (deleted < chunkSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Reaped {} expired stories, {} still pending", total, backlog.get());
+        }
+    }
+
+    private int reapChunk(LocalDateTime now) {
+        List<String> mediaUrls = new ArrayList<>();
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<Object[]> rows = storyRepository.findExpiredStoryKeys(now, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<Long> storyIds = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                storyIds.add(((Number) row[0]).longValue());
+                mediaUrls.add((String) row[1]);
+            }
+            storyRepository.deleteViewersByStoryIds(storyIds);
+            return storyRepository.deleteByIds(storyIds);
+        });
+
+        // Only reached once the chunk has committed, so files never outlive a rolled back delete
+        mediaUrls.forEach(mediaUrl -> fileDeleteExecutor.execute(() -> deleteFile(mediaUrl)));
+        int count = deleted != null ? deleted : 0;
+        storiesDeleted.increment(count);
+        return count;
+    }
+
+    private void deleteFile(String mediaUrl) {
+        try {
+            fileStorageService.deleteFile(mediaUrl);
+            filesDeleted.increment();
+        } catch (IOException e) {
+            fileDeleteFailures.increment();
+            log.error("Error deleting file during cleanup: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        fileDeleteExecutor.shutdown();
+        if (!fileDeleteExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Story file reaper stopped with {} files still queued", fileDeleteExecutor.getQueue().size());
+        }
+    }
+}
@@ -4,17 +4,46 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.skillshare.platform.demo.repository.MediaBlobRepository;
+
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
 
+/**
+ * Content-addressed media store.
+ *
+ * Files are named by the SHA-256 of their bytes and fanned out over two
+ * levels of directories ({@code ab/cd/abcd...ef.jpg}), so identical uploads
+ * share one file and no directory grows past a few hundred entries. The
+ * media_blobs table counts the references to each file; a file is only
+ * deleted when its last reference is released.
+ */
 @Service
 public class FileStorageService {
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
@@ -22,15 +51,39 @@ public class FileStorageService {
     private final Path fileStorageLocation;
     private final String uploadBaseUrl;
 
+    private static final Pattern CONTENT_ADDRESSED_KEY =
+            Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(\\.[a-z0-9]{1,10})?");
+
+    // Content-addressed files and their resized variants never change under the same name
+    private static final Pattern IMMUTABLE_KEY =
+            Pattern.compile("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{64}(_[0-9]+)?(\\.[a-z0-9]{1,10})?");
+
+    private final Path incomingLocation;
+    private final int bufferSize;
+    private final long maxUploadSize;
+    private final MediaBlobRepository mediaBlobRepository;
+    // Reference counts commit on their own, independent of the caller's transaction
+    private final TransactionTemplate blobTransaction;
+
     public FileStorageService(
+            MediaBlobRepository mediaBlobRepository,
+            PlatformTransactionManager transactionManager,
             @Value("${file.upload-dir:./uploads}") String uploadDir,
-            @Value("${file.upload-url:uploads}") String uploadUrl) {
+            @Value("${file.upload-url:uploads}") String uploadUrl,
+            @Value("${file.upload.buffer-size:65536}") int bufferSize,
+            @Value("${file.upload.max-size:20971520}") long maxUploadSize) {
         
         logger.info("Initializing FileStorageService with uploadDir={}, uploadUrl={}", uploadDir, uploadUrl);
         
         this.fileStorageLocation = Paths.get(uploadDir)
                 .toAbsolutePath().normalize();
         this.uploadBaseUrl = uploadUrl;
+        this.incomingLocation = this.fileStorageLocation.resolve(".incoming");
+        this.bufferSize = bufferSize;
+        this.maxUploadSize = maxUploadSize;
+        this.mediaBlobRepository = mediaBlobRepository;
+        this.blobTransaction = new TransactionTemplate(transactionManager);
+        this.blobTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
 
         try {
             // Create directory if it doesn't exist
@@ -56,54 +109,184 @@ public class FileStorageService {
             logger.error("Could not create the directory where the uploaded files will be stored", ex);
             throw new RuntimeException("Could not create the directory where the uploaded files will be stored", ex);
         }
+
+        try {
+            // Uploads are assembled here and moved into place, so both must be on the same file system
+            Files.createDirectories(this.incomingLocation);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the incoming upload directory " + this.incomingLocation, ex);
+        }
     }
 
     public String storeFile(MultipartFile file) throws IOException {
         logger.info("Storing file: {}, size: {}", file.getOriginalFilename(), file.getSize());
-        
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename(), file.getContentType()).url();
+        }
+    }
+
+    /**
+     * Streams the input to a new file under the upload directory through one
+     * bounded buffer, hashing the bytes as they are written. The file only
+     * becomes visible under its final name once it has been fully written.
+     */
+    public StoredFile store(InputStream in, String originalFileName, String contentType) throws IOException {
+        String fileExtension = extensionOf(originalFileName);
+        Path partial = createPartialFile();
+        MessageDigest digest = newDigest();
+
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+            long size = transfer(in, out, digest, maxUploadSize, written -> { });
+            return promote(partial, fileExtension, contentType, digest, size);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            logger.error("Failed to store file: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    // Empty file in the incoming directory, used to assemble an upload before it is promoted
+    public Path createPartialFile() throws IOException {
+        return Files.createTempFile(incomingLocation, "upload-", ".part");
+    }
+
+    /**
+     * Deletes partial files not written to since {@code cutoffMillis}, except
+     * those in {@code inUse}. Uploads in progress touch their file with every
+     * chunk, so this only finds files whose upload was lost, e.g. to a restart.
+     */
+    public int removeStalePartialFiles(long cutoffMillis, Set<Path> inUse) {
+        int removed = 0;
+        try (DirectoryStream<Path> partials = Files.newDirectoryStream(incomingLocation, "upload-*.part")) {
+            for (Path partial : partials) {
+                try {
+                    if (!inUse.contains(partial) && Files.getLastModifiedTime(partial).toMillis() < cutoffMillis
+                            && Files.deleteIfExists(partial)) {
+                        removed++;
+                    }
+                } catch (IOException e) {
+                    logger.warn("Could not remove stale partial file {}: {}", partial.getFileName(), e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not list partial files in {}: {}", incomingLocation, e.getMessage());
+        }
+        return removed;
+    }
+
+    /**
+     * Copies the input into the channel at its current position and feeds every
+     * written byte to the digest. {@code onWritten} is told how many bytes were
+     * written after each buffer, so a caller can resume after a failed read.
+     *
+     * @throws IllegalArgumentException if the input holds more than {@code maxBytes}
+     */
+    public long transfer(InputStream in, FileChannel out, MessageDigest digest, long maxBytes,
+                         LongConsumer onWritten) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(in);
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        long total = 0;
+
+        while (source.read(buffer) != -1) {
+            buffer.flip();
+            total += buffer.remaining();
+            if (total > maxBytes) {
+                throw new IllegalArgumentException("Upload exceeds the maximum size of " + maxBytes + " bytes");
+            }
+            int start = buffer.position();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            digest.update(buffer.array(), start, buffer.limit() - start);
+            onWritten.accept(buffer.limit() - start);
+            buffer.clear();
+        }
+        return total;
+    }
+
+    /**
+     * Moves a fully written partial file to its content address and takes a
+     * reference to it. If the same bytes are already stored, the partial file
+     * is dropped and the existing file is shared. A reference taken inside a
+     * transaction is released again if that transaction rolls back.
+     */
+    public StoredFile promote(Path partial, String fileExtension, String contentType,
+                              MessageDigest digest, long size) throws IOException {
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String storageKey = sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + fileExtension;
+        Path targetLocation = this.fileStorageLocation.resolve(storageKey);
+
+        try {
+            blobTransaction.executeWithoutResult(status -> {
+                // The upsert locks the blob row, so a concurrent release cannot remove the file under us
+                mediaBlobRepository.acquire(storageKey, sha256, size);
+                try {
+                    if (Files.exists(targetLocation)) {
+                        logger.info("File already stored at: {}, sharing it", targetLocation);
+                    } else {
+                        Files.createDirectories(targetLocation.getParent());
+                        Files.move(partial, targetLocation, StandardCopyOption.ATOMIC_MOVE);
+                        logger.info("File stored successfully at: {} ({} bytes)", targetLocation, size);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        afterRollback(() -> release(storageKey));
+        return new StoredFile(urlOf(storageKey), sha256, size, contentType);
+    }
+
+    public String extensionOf(String originalFileName) {
+        if (originalFileName == null) {
+            return "";
+        }
         // Normalize file name
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        
+        String cleanFileName = StringUtils.cleanPath(originalFileName);
+
         // Check if the file's name contains invalid characters
-        if (originalFileName.contains("..")) {
-            logger.error("Filename contains invalid path sequence: {}", originalFileName);
-            throw new RuntimeException("Filename contains invalid path sequence " + originalFileName);
+        if (cleanFileName.contains("..")) {
+            logger.error("Filename contains invalid path sequence: {}", cleanFileName);
+            throw new IllegalArgumentException("Filename contains invalid path sequence " + cleanFileName);
         }
-        
-        // Generate a unique file name to prevent conflicts
-        String fileExtension = "";
-        if (originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+
+        int dot = cleanFileName.lastIndexOf('.');
+        if (dot < 0 || dot < cleanFileName.lastIndexOf('/')) {
+            return "";
         }
-        String fileName = UUID.randomUUID().toString() + fileExtension;
-        
-        // Copy file to the target location
-        Path targetLocation = this.fileStorageLocation.resolve(fileName);
-        logger.info("Copying file to: {}", targetLocation);
-        
+        String fileExtension = cleanFileName.substring(dot);
+        // Extensions end up in file names and URLs, so keep them to simple characters
+        return fileExtension.matches("\\.[A-Za-z0-9]{1,10}") ? fileExtension.toLowerCase() : "";
+    }
+
+    public static MessageDigest newDigest() {
         try {
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
-            logger.info("File stored successfully at: {}", targetLocation);
-            
-            // Return the URL path to access the file
-            String fileUrl = "/" + uploadBaseUrl + "/" + fileName;
-            logger.info("File URL: {}", fileUrl);
-            return fileUrl;
-        } catch (IOException e) {
-            logger.error("Failed to store file: {}", e.getMessage(), e);
-            throw e;
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
         }
     }
-    
+
+    /**
+     * Releases one reference to a stored file once the current transaction
+     * commits, deleting the file when nothing references it any more. Files
+     * stored before content addressing are deleted directly.
+     */
     public void deleteFile(String fileName) throws IOException {
         logger.info("Deleting file: {}", fileName);
-        
-        // Extract just the filename from the full path if needed
-        if (fileName.startsWith("/" + uploadBaseUrl + "/")) {
-            fileName = fileName.substring(("/" + uploadBaseUrl + "/").length());
+        String storageKey = storageKeyOf(fileName);
+
+        if (isContentAddressed(storageKey)) {
+            afterCommit(() -> release(storageKey));
+            return;
         }
-        
-        Path filePath = this.fileStorageLocation.resolve(fileName);
+
+        Path filePath = this.fileStorageLocation.resolve(storageKey);
         logger.info("Deleting file at: {}", filePath);
         
         try {
@@ -114,4 +297,122 @@ public class FileStorageService {
             throw e;
         }
     }
+
+    // Path of a stored file relative to the upload directory
+    public String storageKeyOf(String fileUrl) {
+        // Extract just the filename from the full path if needed
+        if (fileUrl.startsWith("/" + uploadBaseUrl + "/")) {
+            return fileUrl.substring(("/" + uploadBaseUrl + "/").length());
+        }
+        return fileUrl;
+    }
+
+    public String urlOf(String storageKey) {
+        return "/" + uploadBaseUrl + "/" + storageKey;
+    }
+
+    public Path pathOf(String storageKey) {
+        return this.fileStorageLocation.resolve(storageKey);
+    }
+
+    /**
+     * The stored file for a key taken from a request path, or {@code null} if
+     * it does not exist or lies outside the servable part of the store, such
+     * as partial uploads.
+     */
+    public Path findStoredFile(String storageKey) {
+        Path filePath = this.fileStorageLocation.resolve(storageKey).normalize();
+        if (!filePath.startsWith(this.fileStorageLocation) || filePath.startsWith(this.incomingLocation)
+                || !Files.isRegularFile(filePath)) {
+            return null;
+        }
+        return filePath;
+    }
+
+    public boolean isContentAddressed(String storageKey) {
+        return CONTENT_ADDRESSED_KEY.matcher(storageKey).matches();
+    }
+
+    public boolean isImmutable(String storageKey) {
+        return IMMUTABLE_KEY.matcher(storageKey).matches();
+    }
+
+    /**
+     * URL of the resized copy of a stored image, {@code .../<hash>_<width>.jpg}.
+     * Images that may be transparent keep a PNG variant.
+     */
+    public static String variantUrlOf(String fileUrl, int width) {
+        int dot = fileUrl.lastIndexOf('.');
+        boolean hasExtension = dot > fileUrl.lastIndexOf('/');
+        String base = hasExtension ? fileUrl.substring(0, dot) : fileUrl;
+        String extension = hasExtension ? fileUrl.substring(dot).toLowerCase() : "";
+        return base + "_" + width + (extension.equals(".png") || extension.equals(".gif") ? ".png" : ".jpg");
+    }
+
+    // Moves a fully written derived file, such as an image variant, into place under the given key
+    public void placeDerivedFile(Path partial, String storageKey) throws IOException {
+        Files.move(partial, pathOf(storageKey), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteVariants(Path filePath) throws IOException {
+        String fileName = filePath.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(filePath.getParent(), base + "_*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        }
+    }
+
+    private void release(String storageKey) {
+        try {
+            blobTransaction.executeWithoutResult(status -> {
+                if (mediaBlobRepository.release(storageKey) == 0
+                        || mediaBlobRepository.deleteIfUnreferenced(storageKey) == 0) {
+                    return;
+                }
+                // Still holding the row lock, so a concurrent upload of the same bytes waits for this
+                try {
+                    Path filePath = this.fileStorageLocation.resolve(storageKey);
+                    Files.deleteIfExists(filePath);
+                    deleteVariants(filePath);
+                    logger.info("Deleted unreferenced file: {}", storageKey);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to release file {}: {}", storageKey, e.getMessage(), e);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void afterRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    public record StoredFile(String url, String sha256, long size, String contentType) {
+    }
 }
@@ -0,0 +1,251 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the user_followers table.
+ *
+ * Each user maps to two sorted {@code long[]} adjacency arrays, the accounts
+ * they follow and the accounts following them, so follow checks are binary
+ * searches and mutual-follow lookups are linear merges, with no JPA involved.
+ * Arrays are never mutated in place: updates swap in a copy, so readers
+ * need no locking. The graph is loaded before the web server starts and
+ * updated after each follow/unfollow commits. A load builds fresh maps and
+ * swaps them in at once; changes committed while it scans are recorded and
+ * replayed onto the new maps, so they are never lost to the older snapshot.
+ */
+@Component
+@Slf4j
+public class FollowGraph implements SmartInitializingSingleton {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object lock = new Object();
+    private volatile Map<Long, long[]> following = new ConcurrentHashMap<>();
+    private volatile Map<Long, long[]> followers = new ConcurrentHashMap<>();
+    // Changes committed during a load, in commit order; null when no load is running
+    private List<Change> changesDuringLoad;
+
+    public FollowGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Runs once all singletons exist, before the web server accepts requests
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    public void load() {
+        long started = System.currentTimeMillis();
+        synchronized (lock) {
+            changesDuringLoad = new ArrayList<>();
+        }
+        Map<Long, long[]> loadedFollowing;
+        Map<Long, long[]> loadedFollowers;
+        try {
+            loadedFollowing = loadAdjacency(
+                    "SELECT follower_id, followed_id FROM user_followers ORDER BY follower_id, followed_id");
+            loadedFollowers = loadAdjacency(
+                    "SELECT followed_id, follower_id FROM user_followers ORDER BY followed_id, follower_id");
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                changesDuringLoad = null;
+            }
+            throw e;
+        }
+
+        int replayed;
+        synchronized (lock) {
+            // Replaying in order converges on the committed state whether or not the scan saw a change
+            for (Change change : changesDuringLoad) {
+                change.applyTo(loadedFollowing, loadedFollowers);
+            }
+            replayed = changesDuringLoad.size();
+            changesDuringLoad = null;
+            following = loadedFollowing;
+            followers = loadedFollowers;
+        }
+        log.info("Loaded follow graph for {} users in {} ms, replaying {} concurrent changes",
+                loadedFollowing.size(), System.currentTimeMillis() - started, replayed);
+    }
+
+    // Every user with at least one follow relation, in either direction
+    public Set<Long> getUserIds() {
+        Set<Long> userIds = new HashSet<>(following.keySet());
+        userIds.addAll(followers.keySet());
+        return userIds;
+    }
+
+    public boolean isFollowing(Long followerId, Long followedId) {
+        return Arrays.binarySearch(following.getOrDefault(followerId, EMPTY), followedId) >= 0;
+    }
+
+    // The subset of the given ids that the follower follows
+    public Set<Long> followedAmong(Long followerId, Collection<Long> userIds) {
+        long[] followed = following.getOrDefault(followerId, EMPTY);
+        Set<Long> result = new HashSet<>();
+        for (Long userId : userIds) {
+            if (Arrays.binarySearch(followed, userId) >= 0) {
+                result.add(userId);
+            }
+        }
+        return result;
+    }
+
+    // Sorted ids of the accounts the user follows; callers must not modify the array
+    public long[] getFollowingIds(Long userId) {
+        return following.getOrDefault(userId, EMPTY);
+    }
+
+    // Sorted ids of the accounts following the user; callers must not modify the array
+    public long[] getFollowerIds(Long userId) {
+        return followers.getOrDefault(userId, EMPTY);
+    }
+
+    public int getFollowerCount(Long userId) {
+        return getFollowerIds(userId).length;
+    }
+
+    public int getFollowingCount(Long userId) {
+        return getFollowingIds(userId).length;
+    }
+
+    // Accounts the user follows that also follow the user back, in id order
+    public long[] getMutualFollowIds(Long userId) {
+        return intersect(getFollowingIds(userId), getFollowerIds(userId));
+    }
+
+    public void followed(Long followerId, Long followedId) {
+        afterCommit(() -> apply(new Change(followerId, followedId, true)));
+    }
+
+    public void unfollowed(Long followerId, Long followedId) {
+        afterCommit(() -> apply(new Change(followerId, followedId, false)));
+    }
+
+    private void apply(Change change) {
+        synchronized (lock) {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(change);
+            }
+            change.applyTo(following, followers);
+        }
+    }
+
+    private Map<Long, long[]> loadAdjacency(String sql) {
+        Map<Long, long[]> loaded = new ConcurrentHashMap<>();
+        long[][] buffer = {new long[16]};
+        int[] size = {0};
+        long[] currentKey = {Long.MIN_VALUE};
+
+        jdbcTemplate.query(sql, rs -> {
+            long key = rs.getLong(1);
+            if (key != currentKey[0]) {
+                if (size[0] > 0) {
+                    loaded.put(currentKey[0], Arrays.copyOf(buffer[0], size[0]));
+                }
+                currentKey[0] = key;
+                size[0] = 0;
+            }
+            if (size[0] == buffer[0].length) {
+                buffer[0] = Arrays.copyOf(buffer[0], size[0] * 2);
+            }
+            buffer[0][size[0]++] = rs.getLong(2);
+        });
+        if (size[0] > 0) {
+            loaded.put(currentKey[0], Arrays.copyOf(buffer[0], size[0]));
+        }
+
+        return loaded;
+    }
+
+    private static long[] insert(long[] ids, long value) {
+        if (ids == null) {
+            return new long[]{value};
+        }
+        int index = Arrays.binarySearch(ids, value);
+        if (index >= 0) {
+            return ids;
+        }
+        int insertAt = -index - 1;
+        long[] updated = new long[ids.length + 1];
+        System.arraycopy(ids, 0, updated, 0, insertAt);
+        updated[insertAt] = value;
+        System.arraycopy(ids, insertAt, updated, insertAt + 1, ids.length - insertAt);
+        return updated;
+    }
+
+    // Returns null once the last id is gone, which removes the map entry
+    private static long[] remove(long[] ids, long value) {
+        int index = Arrays.binarySearch(ids, value);
+        if (index < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        long[] updated = new long[ids.length - 1];
+        System.arraycopy(ids, 0, updated, 0, index);
+        System.arraycopy(ids, index + 1, updated, index, ids.length - index - 1);
+        return updated;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private record Change(long followerId, long followedId, boolean added) {
+
+        void applyTo(Map<Long, long[]> following, Map<Long, long[]> followers) {
+            if (added) {
+                following.compute(followerId, (id, ids) -> insert(ids, followedId));
+                followers.compute(followedId, (id, ids) -> insert(ids, followerId));
+            } else {
+                following.computeIfPresent(followerId, (id, ids) -> remove(ids, followedId));
+                followers.computeIfPresent(followedId, (id, ids) -> remove(ids, followerId));
+            }
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.skillshare.platform.demo.repository.MediaRepository;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Generates resized copies of uploaded images in the background.
+ *
+ * Each stored image gets one variant per configured width that is smaller
+ * than the original, written next to it as {@code <hash>_<width>.jpg} (PNG
+ * for images that may be transparent) using the JDK's ImageIO codecs. Since
+ * files are content-addressed, an image uploaded again reuses the variants
+ * already on disk. Work runs on a small bounded pool after the upload
+ * commits; when the queue is full new images are skipped, since clients
+ * fall back to the original.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of(".jpg", ".jpeg", ".png", ".gif", ".bmp");
+
+    private final FileStorageService fileStorageService;
+    private final MediaRepository mediaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int[] widths;
+    private final float jpegQuality;
+    private final long maxPixels;
+
+    private final Counter variantsGenerated;
+    private final Counter imagesSkipped;
+    private final Counter imagesFailed;
+
+    public ImageDerivativeService(
+            FileStorageService fileStorageService,
+            MediaRepository mediaRepository,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            @Value("${media.derivatives.widths:160,480,1080}") int[] widths,
+            @Value("${media.derivatives.jpeg-quality:0.8}") float jpegQuality,
+            @Value("${media.derivatives.max-pixels:40000000}") long maxPixels,
+            @Value("${media.derivatives.threads:2}") int threads,
+            @Value("${media.derivatives.queue-capacity:1000}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.mediaRepository = mediaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.widths = Arrays.stream(widths).sorted().toArray();
+        this.jpegQuality = jpegQuality;
+        this.maxPixels = maxPixels;
+
+        this.variantsGenerated = Counter.builder("media.derivatives.generated")
+                .description("Resized image variants written")
+                .register(meterRegistry);
+        this.imagesSkipped = Counter.builder("media.derivatives.skipped")
+                .description("Images skipped because the queue was full or they were too large")
+                .register(meterRegistry);
+        this.imagesFailed = Counter.builder("media.derivatives.failed")
+                .description("Images whose variants could not be generated")
+                .register(meterRegistry);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    // Resizing is background work; keep request threads ahead of it
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    imagesSkipped.increment();
+                    log.warn("Image derivative queue is full, skipping variants");
+                });
+
+        Gauge.builder("media.derivatives.queue", executor, pool -> pool.getQueue().size())
+                .description("Images waiting for resized variants")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues variant generation for a stored file once the current transaction
+     * commits. Files that are not content-addressed images are ignored.
+     */
+    public void generateVariants(String fileUrl) {
+        if (fileUrl == null || !isImage(fileUrl)
+                || !fileStorageService.isContentAddressed(fileStorageService.storageKeyOf(fileUrl))) {
+            return;
+        }
+        afterCommit(() -> executor.execute(() -> process(fileUrl)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void process(String fileUrl) {
+        try {
+            List<Integer> generated = writeVariants(fileUrl);
+            if (generated == null) {
+                return;
+            }
+            String variantWidths = generated.stream().map(String::valueOf).collect(Collectors.joining(","));
+            transactionTemplate.executeWithoutResult(status -> mediaRepository.setVariantWidths(fileUrl, variantWidths));
+        } catch (IOException | RuntimeException e) {
+            imagesFailed.increment();
+            log.warn("Could not generate variants of {}: {}", fileUrl, e.getMessage());
+        }
+    }
+
+    // Widths available for the image, or null if it was skipped
+    private List<Integer> writeVariants(String fileUrl) throws IOException {
+        Path original = fileStorageService.pathOf(fileStorageService.storageKeyOf(fileUrl));
+        if (!Files.exists(original)) {
+            return null;
+        }
+
+        Dimension size = readSize(original);
+        if ((long) size.width * size.height > maxPixels) {
+            imagesSkipped.increment();
+            log.info("Skipping variants of {}: {}x{} exceeds the pixel limit", fileUrl, size.width, size.height);
+            return null;
+        }
+
+        int originalWidth = size.width;
+        List<Integer> targets = new ArrayList<>();
+        List<Integer> missing = new ArrayList<>();
+        for (int width : widths) {
+            if (width < originalWidth) {
+                targets.add(width);
+                if (!Files.exists(variantPath(fileUrl, width))) {
+                    missing.add(width);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return targets;
+        }
+
+        BufferedImage image = ImageIO.read(original.toFile());
+        if (image == null) {
+            throw new IOException("Unsupported image format");
+        }
+
+        // Largest first, each variant downscaled from the previous one instead of the full original
+        BufferedImage source = image;
+        for (int i = missing.size() - 1; i >= 0; i--) {
+            int width = missing.get(i);
+            BufferedImage resized = resize(source, width, variantUrl(fileUrl, width).endsWith(".png"));
+            writeVariant(resized, fileUrl, width);
+            source = resized;
+        }
+        return targets;
+    }
+
+    private Dimension readSize(Path original) throws IOException {
+        // Reads just the header, so oversized images and images that are already done are never decoded
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage resize(BufferedImage source, int width, boolean keepAlpha) {
+        // Bilinear filtering only samples neighbouring pixels, so halve large reductions step by step
+        while (source.getWidth() / 2 >= width) {
+            source = scale(source, source.getWidth() / 2, keepAlpha);
+        }
+        return scale(source, width, keepAlpha);
+    }
+
+    private BufferedImage scale(BufferedImage source, int width, boolean keepAlpha) {
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height,
+                keepAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return resized;
+    }
+
+    private void writeVariant(BufferedImage image, String fileUrl, int width) throws IOException {
+        String variantUrl = variantUrl(fileUrl, width);
+        String format = variantUrl.endsWith(".png") ? "png" : "jpeg";
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        Path partial = fileStorageService.createPartialFile();
+
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(partial.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                if (format.equals("jpeg")) {
+                    param.setCompressionQuality(jpegQuality);
+                }
+            }
+            if (param.canWriteProgressive()) {
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+
+        fileStorageService.placeDerivedFile(partial, fileStorageService.storageKeyOf(variantUrl));
+        variantsGenerated.increment();
+    }
+
+    private Path variantPath(String fileUrl, int width) {
+        return fileStorageService.pathOf(fileStorageService.storageKeyOf(variantUrl(fileUrl, width)));
+    }
+
+    private static String variantUrl(String fileUrl, int width) {
+        return FileStorageService.variantUrlOf(fileUrl, width);
+    }
+
+    private static boolean isImage(String fileUrl) {
+        int dot = fileUrl.lastIndexOf('.');
+        return dot > fileUrl.lastIndexOf('/') && IMAGE_EXTENSIONS.contains(fileUrl.substring(dot).toLowerCase());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
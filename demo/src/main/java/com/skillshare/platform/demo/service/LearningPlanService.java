@@ -2,6 +2,7 @@ package com.skillshare.platform.demo.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -16,9 +17,12 @@ import com.skillshare.platform.demo.model.User;
 import com.skillshare.platform.demo.repository.LearningPlanRepository;
 import com.skillshare.platform.demo.repository.LearningPlanTopicRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
+import com.skillshare.platform.demo.util.IdOrder;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,23 +32,28 @@ public class LearningPlanService {
     private final LearningPlanRepository learningPlanRepository;
     private final LearningPlanTopicRepository learningPlanTopicRepository;
     private final UserRepository userRepository;
+    private final SearchIndexService searchIndexService;
+    private final DtoCache dtoCache;
 
-    public List<LearningPlanDTO> getLearningPlansByUserId(Long userId) {
-        List<LearningPlan> learningPlans = learningPlanRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return learningPlans.stream()
-                .map(LearningPlanDTO::fromLearningPlan)
-                .collect(Collectors.toList());
+    public Page<LearningPlanDTO> getLearningPlansByUserId(Long userId, Pageable pageable) {
+        return learningPlanRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable)
+                .map(LearningPlanDTO::fromLearningPlan);
     }
 
     public LearningPlanDTO getLearningPlanById(Long id) {
-        LearningPlan learningPlan = learningPlanRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Learning plan not found with id: " + id));
-        return LearningPlanDTO.fromLearningPlan(learningPlan);
+        return dtoCache.get(DtoCache.Region.LEARNING_PLAN, id, LearningPlanDTO.class, () -> LearningPlanDTO.fromLearningPlan(
+                learningPlanRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Learning plan not found with id: " + id))));
     }
 
     public Page<LearningPlanDTO> searchLearningPlans(String query, Pageable pageable) {
-        Page<LearningPlan> learningPlans = learningPlanRepository.findByTitleContainingOrderByCreatedAtDesc(query, pageable);
-        return learningPlans.map(LearningPlanDTO::fromLearningPlan);
+        Page<Long> learningPlanIds = searchIndexService.search(
+                SearchIndexService.DocumentType.LEARNING_PLAN, query, pageable);
+        List<LearningPlan> learningPlans = IdOrder.inIdOrder(learningPlanIds.getContent(),
+                learningPlanRepository.findByIdIn(learningPlanIds.getContent()), LearningPlan::getId);
+        return new PageImpl<>(learningPlans.stream()
+                .map(LearningPlanDTO::fromLearningPlan)
+                .collect(Collectors.toList()), pageable, learningPlanIds.getTotalElements());
     }
 
     @Transactional
@@ -62,90 +71,77 @@ public class LearningPlanService {
                 .topics(new ArrayList<>())
                 .build();
 
-        LearningPlan savedLearningPlan = learningPlanRepository.save(learningPlan);
-
-        if (request.getTopics() != null && !request.getTopics().isEmpty()) {
-            List<LearningPlanTopic> topics = request.getTopics().stream()
-                    .map(topicRequest -> createTopic(savedLearningPlan, topicRequest))
-                    .collect(Collectors.toList());
-            
-            // Save topics individually
-            topics.forEach(learningPlanTopicRepository::save);
-            
-            // Update progress
-            updateProgress(savedLearningPlan);
+        // Topics are persisted through the cascade together with the plan
+        if (request.getTopics() != null) {
+            request.getTopics().forEach(topicRequest -> learningPlan.getTopics().add(createTopic(learningPlan, topicRequest)));
         }
+        updateProgress(learningPlan);
 
+        LearningPlan savedLearningPlan = learningPlanRepository.save(learningPlan);
+        searchIndexService.indexLearningPlan(savedLearningPlan);
         return LearningPlanDTO.fromLearningPlan(savedLearningPlan);
     }
 
+    /**
+     * Applies the submitted plan as a diff against the stored topics: topics are
+     * matched by id, unchanged ones produce no SQL, changed ones are dirty-checked
+     * into batched UPDATEs, missing ones are removed as orphans and only topics
+     * without an id are inserted.
+     */
     @Transactional
     public LearningPlanDTO updateLearningPlan(Long id, LearningPlanRequest request, Long userId) {
-        try {
-            System.out.println("Updating learning plan with ID: " + id);
-            System.out.println("Request data: " + request.toString());
-            
-            // 1. Get the learning plan
-            LearningPlan learningPlan = learningPlanRepository.findById(id)
-                    .orElseThrow(() -> new ResourceNotFoundException("Learning plan not found with id: " + id));
-
-            // 2. Check ownership
-            if (!learningPlan.getUser().getId().equals(userId)) {
-                throw new IllegalArgumentException("You are not authorized to update this learning plan");
-            }
+        LearningPlan learningPlan = learningPlanRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Learning plan not found with id: " + id));
 
-            // 3. Update basic fields
-            learningPlan.setTitle(request.getTitle());
-            learningPlan.setDescription(request.getDescription());
-            learningPlan.setStartDate(request.getStartDate());
-            learningPlan.setEndDate(request.getEndDate());
-            
-            // 4. Save the learning plan with basic updates
-            learningPlan = learningPlanRepository.save(learningPlan);
-            
-            // 5. Delete all existing topics using the repository method
-            System.out.println("Deleting existing topics for learning plan: " + id);
-            learningPlanTopicRepository.deleteByLearningPlanId(id);
-            
-            // 6. Create and save new topics
-            if (request.getTopics() != null && !request.getTopics().isEmpty()) {
-                System.out.println("Creating " + request.getTopics().size() + " new topics");
-                
-                List<LearningPlanTopic> newTopics = new ArrayList<>();
-                for (int i = 0; i < request.getTopics().size(); i++) {
-                    LearningPlanTopicRequest topicRequest = request.getTopics().get(i);
-                    
-                    // Create a new topic
-                    LearningPlanTopic topic = LearningPlanTopic.builder()
-                            .learningPlan(learningPlan)
-                            .name(topicRequest.getTitle() != null ? topicRequest.getTitle() : topicRequest.getName())
-                            .description(topicRequest.getDescription())
-                            .resources(topicRequest.getResources())
-                            .orderIndex(i)
-                            .completed(topicRequest.isCompleted())
-                            .build();
-                    
-                    // Save the topic
-                    LearningPlanTopic savedTopic = learningPlanTopicRepository.save(topic);
-                    newTopics.add(savedTopic);
-                }
-                
-                // 7. Update progress
-                int completedTopics = (int) newTopics.stream().filter(LearningPlanTopic::isCompleted).count();
-                int totalTopics = newTopics.size();
-                int progress = totalTopics > 0 ? (completedTopics * 100) / totalTopics : 0;
-                learningPlan.setProgress(progress);
-                
-                // 8. Save the learning plan with updated progress
-                learningPlan = learningPlanRepository.save(learningPlan);
+        if (!learningPlan.getUser().getId().equals(userId)) {
+            throw new IllegalArgumentException("You are not authorized to update this learning plan");
+        }
+
+        dtoCache.evict(DtoCache.Region.LEARNING_PLAN, id);
+        learningPlan.setTitle(request.getTitle());
+        learningPlan.setDescription(request.getDescription());
+        learningPlan.setStartDate(request.getStartDate());
+        learningPlan.setEndDate(request.getEndDate());
+
+        Map<Long, LearningPlanTopic> existingTopics = learningPlan.getTopics().stream()
+                .collect(Collectors.toMap(LearningPlanTopic::getId, Function.identity()));
+        List<LearningPlanTopic> topics = new ArrayList<>();
+        List<LearningPlanTopicRequest> topicRequests = request.getTopics() != null ? request.getTopics() : List.of();
+        for (int i = 0; i < topicRequests.size(); i++) {
+            LearningPlanTopicRequest topicRequest = topicRequests.get(i);
+            LearningPlanTopic topic = topicRequest.getId() != null ? existingTopics.remove(topicRequest.getId()) : null;
+            if (topic == null) {
+                topic = createTopic(learningPlan, topicRequest);
+            } else {
+                applyTopic(topic, topicRequest);
             }
-            
-            // 9. Return the updated learning plan
-            return LearningPlanDTO.fromLearningPlan(learningPlan);
-        } catch (Exception e) {
-            System.err.println("Error updating learning plan: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+            topic.setOrderIndex(i);
+            topics.add(topic);
+        }
+
+        // Whatever is left in existingTopics was not submitted and is deleted by orphan removal
+        learningPlan.getTopics().clear();
+        learningPlan.getTopics().addAll(topics);
+        updateProgress(learningPlan);
+
+        learningPlan = learningPlanRepository.save(learningPlan);
+        searchIndexService.indexLearningPlan(learningPlan);
+        return LearningPlanDTO.fromLearningPlan(learningPlan);
+    }
+
+    /**
+     * Marks one topic completed or not. Costs one conditional UPDATE on the topic
+     * and, only if it actually flipped, one arithmetic UPDATE of the plan's
+     * stored counters and progress.
+     */
+    @Transactional
+    public void setTopicCompleted(Long planId, Long topicId, boolean completed, Long userId) {
+        if (learningPlanTopicRepository.setCompleted(planId, topicId, userId, completed) > 0) {
+            learningPlanRepository.adjustCompletedTopics(planId, completed ? 1 : -1);
+            dtoCache.evict(DtoCache.Region.LEARNING_PLAN, planId);
+        } else if (!learningPlanTopicRepository.existsByIdAndLearningPlanIdAndLearningPlanUserId(topicId, planId, userId)) {
+            // Nothing changed either because the topic was already in that state or because it is not the caller's
+            throw new ResourceNotFoundException("Topic " + topicId + " not found in your learning plan " + planId);
         }
     }
 
@@ -163,6 +159,8 @@ public class LearningPlanService {
         
         // Then delete the learning plan
         learningPlanRepository.delete(learningPlan);
+        dtoCache.evict(DtoCache.Region.LEARNING_PLAN, id);
+        searchIndexService.remove(SearchIndexService.DocumentType.LEARNING_PLAN, id);
     }
 
     private LearningPlanTopic createTopic(LearningPlan learningPlan, LearningPlanTopicRequest request) {
@@ -176,29 +174,26 @@ public class LearningPlanService {
                 .build();
     }
     
+    // Re-assigning an unchanged value leaves the topic clean, so dirty checking issues no UPDATE for it
+    private void applyTopic(LearningPlanTopic topic, LearningPlanTopicRequest request) {
+        topic.setName(request.getTitle() != null ? request.getTitle() : request.getName());
+        topic.setDescription(request.getDescription());
+        topic.setResources(request.getResources());
+        topic.setCompleted(request.isCompleted());
+    }
+
+    // Computed from the topics already in memory, so no COUNT query is issued
     private void updateProgress(LearningPlan learningPlan) {
         int completedTopics = (int) learningPlan.getTopics().stream().filter(LearningPlanTopic::isCompleted).count();
         int totalTopics = learningPlan.getTopics().size();
         int progress = totalTopics > 0 ? (completedTopics * 100) / totalTopics : 0;
+        learningPlan.setTotalTopics(totalTopics);
+        learningPlan.setCompletedTopics(completedTopics);
         learningPlan.setProgress(progress);
-        learningPlanRepository.save(learningPlan);
     }
 
-    public List<LearningPlanDTO> getAllLearningPlans() {
-        System.out.println("LearningPlanService.getAllLearningPlans called");
-        try {
-            List<LearningPlan> plans = learningPlanRepository.findAll();
-            System.out.println("Found " + plans.size() + " learning plans in repository");
-        
-            List<LearningPlanDTO> dtos = plans.stream()
-                    .map(LearningPlanDTO::fromLearningPlan)
-                    .collect(Collectors.toList());
-            System.out.println("Converted " + dtos.size() + " plans to DTOs");
-            return dtos;
-        } catch (Exception e) {
-            System.err.println("Error in LearningPlanService.getAllLearningPlans: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    // Owners come from the entity graph and topics from one batched IN query, so cost follows the page size
+    public Page<LearningPlanDTO> getAllLearningPlans(Pageable pageable) {
+        return learningPlanRepository.findAll(pageable).map(LearningPlanDTO::fromLearningPlan);
     }
 }
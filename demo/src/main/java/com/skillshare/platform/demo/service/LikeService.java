@@ -21,6 +21,8 @@ public class LikeService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final NotificationService notificationService;
+    private final DtoCache dtoCache;
+    private final ChangeVersions changeVersions;
 
     @Transactional
     public void likePost(Long postId, Long userId) {
@@ -40,22 +42,25 @@ public class LikeService {
                 .build();
 
         likeRepository.save(like);
+        postRepository.adjustLikesCount(postId, 1);
+        dtoCache.evict(DtoCache.Region.POST, postId);
+        changeVersions.bump(ChangeVersions.Scope.LIKES, userId);
 
         // Send notification to post owner if it's not the same user
         if (!post.getUser().getId().equals(userId)) {
-            notificationService.createNotification(
-                    post.getUser().getId(),
-                    user.getUsername() + " liked your post",
-                    NotificationType.LIKE,
-                    post.getId()
-            );
+            notificationService.enqueueNotification(post.getUser().getId(), user, NotificationType.LIKE, post.getId());
         }
     }
 
     @Transactional
     public void unlikePost(Long postId, Long userId) {
         likeRepository.findByUserIdAndPostId(userId, postId)
-                .ifPresent(likeRepository::delete);
+                .ifPresent(like -> {
+                    likeRepository.delete(like);
+                    postRepository.adjustLikesCount(postId, -1);
+                    dtoCache.evict(DtoCache.Region.POST, postId);
+                    changeVersions.bump(ChangeVersions.Scope.LIKES, userId);
+                });
     }
 
     public long getLikesCount(Long postId) {
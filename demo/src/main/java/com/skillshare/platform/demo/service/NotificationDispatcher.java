@@ -0,0 +1,115 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.model.NotificationOutboxEntry;
+import com.skillshare.platform.demo.model.NotificationType;
+import com.skillshare.platform.demo.repository.NotificationOutboxRepository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the notification outbox in the background.
+ *
+ * Events for the same recipient, type and post that arrive within one drain
+ * are coalesced into a single notification ("alice and 12 others liked your
+ * post"), and the resulting rows are written with one JDBC batch insert.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private static final String INSERT_NOTIFICATION =
+            "INSERT INTO notifications (user_id, message, type, reference_id, is_read, created_at) " +
+            "VALUES (?, ?, ?, ?, false, ?)";
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeVersions changeVersions;
+    private final NotificationStreamService notificationStreamService;
+
+    @Value("${notifications.dispatch-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${notifications.dispatch-interval-ms:2000}")
+    @Transactional
+    public void dispatch() {
+        List<NotificationOutboxEntry> entries = outboxRepository.lockOldest(batchSize);
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<CoalescedNotification> notifications = coalesce(entries);
+        jdbcTemplate.batchUpdate(INSERT_NOTIFICATION, notifications, notifications.size(), (statement, notification) -> {
+            statement.setLong(1, notification.recipientId());
+            statement.setString(2, notification.message());
+            statement.setString(3, notification.type().name());
+            if (notification.referenceId() != null) {
+                statement.setLong(4, notification.referenceId());
+            } else {
+                statement.setNull(4, Types.BIGINT);
+            }
+            statement.setTimestamp(5, Timestamp.valueOf(notification.latest().getCreatedAt()));
+        });
+        outboxRepository.deleteByIds(entries.stream().map(NotificationOutboxEntry::getId).collect(Collectors.toList()));
+        List<Long> recipientIds = notifications.stream().map(CoalescedNotification::recipientId).distinct()
+                .collect(Collectors.toList());
+        recipientIds.forEach(recipientId -> changeVersions.bump(ChangeVersions.Scope.NOTIFICATIONS, recipientId));
+        notificationStreamService.publish(recipientIds);
+
+        log.debug("Delivered {} outbox events as {} notifications", entries.size(), notifications.size());
+    }
+
+    private List<CoalescedNotification> coalesce(List<NotificationOutboxEntry> entries) {
+        Map<GroupKey, List<NotificationOutboxEntry>> groups = new LinkedHashMap<>();
+        for (NotificationOutboxEntry entry : entries) {
+            groups.computeIfAbsent(new GroupKey(entry.getRecipientId(), entry.getType(), entry.getReferenceId()),
+                    key -> new ArrayList<>()).add(entry);
+        }
+
+        List<CoalescedNotification> notifications = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> {
+            NotificationOutboxEntry latest = group.get(group.size() - 1);
+            Set<Long> actorIds = group.stream().map(NotificationOutboxEntry::getActorId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            notifications.add(new CoalescedNotification(key.recipientId(), key.type(), key.referenceId(), latest,
+                    buildMessage(latest.getActorName(), actorIds.size() - 1, key.type())));
+        });
+        return notifications;
+    }
+
+    private String buildMessage(String actorName, int others, NotificationType type) {
+        String actors = switch (others) {
+            case 0 -> actorName;
+            case 1 -> actorName + " and 1 other";
+            default -> actorName + " and " + others + " others";
+        };
+        return switch (type) {
+            case LIKE -> actors + " liked your post";
+            case COMMENT -> actors + " commented on your post";
+            case FOLLOW -> actors + " started following you";
+        };
+    }
+
+    private record GroupKey(Long recipientId, NotificationType type, Long referenceId) {
+    }
+
+    private record CoalescedNotification(Long recipientId, NotificationType type, Long referenceId,
+                                         NotificationOutboxEntry latest, String message) {
+    }
+}
@@ -3,18 +3,26 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.NotificationDTO;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Notification;
+import com.skillshare.platform.demo.model.NotificationOutboxEntry;
 import com.skillshare.platform.demo.model.NotificationType;
 import com.skillshare.platform.demo.model.User;
+import com.skillshare.platform.demo.repository.NotificationOutboxRepository;
 import com.skillshare.platform.demo.repository.NotificationRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
@@ -22,31 +30,67 @@ public class NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationOutboxRepository notificationOutboxRepository;
+    private final ChangeVersions changeVersions;
+    private final NotificationStreamService notificationStreamService;
 
     public Page<NotificationDTO> getUserNotifications(Long userId, Pageable pageable) {
         Page<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
         return notifications.map(NotificationDTO::fromNotification);
     }
 
+    public CursorPage<NotificationDTO> getUserNotificationsByCursor(Long userId, String cursor, int size, boolean includeTotal) {
+        Cursor position = Cursor.decode(cursor);
+        List<Notification> notifications = notificationRepository.findByUserIdBefore(
+                userId, position.getCreatedAt(), position.getId(), PageRequest.of(0, size + 1));
+        Long totalElements = includeTotal ? notificationRepository.countByUserId(userId) : null;
+        return CursorPage.of(notifications, size,
+                notification -> new Cursor(notification.getCreatedAt(), notification.getId()),
+                pageNotifications -> pageNotifications.stream()
+                        .map(NotificationDTO::fromNotification)
+                        .collect(Collectors.toList()),
+                totalElements);
+    }
+
     public long getUnreadNotificationsCount(Long userId) {
         return notificationRepository.countByUserIdAndReadFalse(userId);
     }
 
+    // Changes whenever the user's notifications do, so polls can be answered without a query
+    public String getNotificationsETag(Long userId, Object... view) {
+        return changeVersions.etag("notifications", userId,
+                changeVersions.version(ChangeVersions.Scope.NOTIFICATIONS, userId), view);
+    }
+
     @Transactional
     public void markNotificationAsRead(Long notificationId) {
         notificationRepository.findById(notificationId).ifPresent(notification -> {
             notification.setRead(true);
             notificationRepository.save(notification);
+            changeVersions.bump(ChangeVersions.Scope.NOTIFICATIONS, notification.getUser().getId());
         });
     }
 
     @Transactional
     public void markAllNotificationsAsRead(Long userId) {
-        notificationRepository.findByUserIdOrderByCreatedAtDesc(userId, Pageable.unpaged())
-                .forEach(notification -> {
-                    notification.setRead(true);
-                    notificationRepository.save(notification);
-                });
+        int updated = notificationRepository.markAllAsRead(userId);
+        changeVersions.bump(ChangeVersions.Scope.NOTIFICATIONS, userId);
+        log.debug("Marked {} notifications as read for user {}", updated, userId);
+    }
+
+    /**
+     * Records a notification event in the outbox as part of the caller's transaction.
+     * NotificationDispatcher delivers it shortly afterwards, coalesced with similar events.
+     */
+    @Transactional
+    public void enqueueNotification(Long recipientId, User actor, NotificationType type, Long referenceId) {
+        notificationOutboxRepository.save(NotificationOutboxEntry.builder()
+                .recipientId(recipientId)
+                .actorId(actor.getId())
+                .actorName(actor.getUsername())
+                .type(type)
+                .referenceId(referenceId)
+                .build());
     }
 
     @Transactional
@@ -70,6 +114,8 @@ public class NotificationService {
             log.info("Saving notification to database");
             Notification savedNotification = notificationRepository.save(notification);
             log.info("Notification saved successfully with id: {}", savedNotification.getId());
+            changeVersions.bump(ChangeVersions.Scope.NOTIFICATIONS, userId);
+            notificationStreamService.publish(userId);
 
             return NotificationDTO.fromNotification(savedNotification);
         } catch (Exception e) {
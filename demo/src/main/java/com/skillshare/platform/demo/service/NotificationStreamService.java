@@ -0,0 +1,301 @@
+package com.skillshare.platform.demo.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.skillshare.platform.demo.dto.NotificationDTO;
+import com.skillshare.platform.demo.model.Notification;
+import com.skillshare.platform.demo.repository.NotificationRepository;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes new notifications to connected clients as Server-Sent Events.
+ *
+ * A connection holds no queue of its own: it remembers the id of the last
+ * notification it sent, and a signal makes it read the rows after that id
+ * from the database, at most one page per turn. Signals arriving while a
+ * connection is busy are coalesced, so a burst of notifications costs one
+ * query per connection and a slow client never buffers more than a page.
+ * The same cursor serves reconnects: a client that sends Last-Event-ID is
+ * replayed everything it missed. Idle connections use no thread, only an
+ * async request in the container, and a periodic comment keeps proxies from
+ * closing them. Connections live in memory and are only signalled by this
+ * instance's dispatcher, which SingleInstanceLock makes the only one.
+ */
+@Service
+@Slf4j
+public class NotificationStreamService {
+
+    private static final String EVENT_NAME = "notification";
+    private static final long BUSY_RECONNECT_MILLIS = 60000;
+
+    private final NotificationRepository notificationRepository;
+    private final ThreadPoolExecutor sender;
+    private final Map<Long, ConcurrentLinkedDeque<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final long timeoutMillis;
+    private final long reconnectMillis;
+    private final int batchSize;
+    private final int maxConnections;
+    private final int maxConnectionsPerUser;
+
+    private final Counter eventsSent;
+    private final Counter connectionsRejected;
+
+    public NotificationStreamService(
+            NotificationRepository notificationRepository,
+            MeterRegistry meterRegistry,
+            @Value("${notifications.stream.timeout-ms:1800000}") long timeoutMillis,
+            @Value("${notifications.stream.reconnect-ms:5000}") long reconnectMillis,
+            @Value("${notifications.stream.batch-size:50}") int batchSize,
+            @Value("${notifications.stream.max-connections:50000}") int maxConnections,
+            @Value("${notifications.stream.max-connections-per-user:5}") int maxConnectionsPerUser,
+            @Value("${notifications.stream.sender-threads:4}") int senderThreads) {
+        this.notificationRepository = notificationRepository;
+        this.timeoutMillis = timeoutMillis;
+        this.reconnectMillis = reconnectMillis;
+        this.batchSize = batchSize;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+
+        this.eventsSent = Counter.builder("notifications.stream.sent")
+                .description("Notification events written to streams")
+                .register(meterRegistry);
+        this.connectionsRejected = Counter.builder("notifications.stream.rejected")
+                .description("Stream connections turned away because the server was at its limit")
+                .register(meterRegistry);
+
+        // Each connection has at most one task queued, so the queue never needs to exceed the connection limit
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxConnections),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "notification-stream-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("notifications.stream.connections", connectionCount, AtomicInteger::get)
+                .description("Open notification streams")
+                .register(meterRegistry);
+        Gauge.builder("notifications.stream.queue", sender, pool -> pool.getQueue().size())
+                .description("Streams waiting for a sender thread")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for the user. With {@code lastEventId} the notifications
+     * created after it are replayed first; without it only new ones are sent.
+     */
+    public SseEmitter connect(Long userId, Long lastEventId) {
+        long cursor = lastEventId != null ? lastEventId : latestNotificationId(userId);
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            connectionsRejected.increment();
+            // Ask the client to come back later rather than failing the request outright
+            try {
+                emitter.send(SseEmitter.event().reconnectTime(BUSY_RECONNECT_MILLIS).comment("busy"));
+            } catch (IOException ignored) {
+                // The client is gone already
+            }
+            emitter.complete();
+            return emitter;
+        }
+
+        Connection connection = new Connection(userId, emitter, cursor);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onTimeout(() -> remove(connection));
+        emitter.onError(error -> remove(connection));
+
+        // Added under the map's lock, so it cannot race with the last connection of the user being removed
+        ConcurrentLinkedDeque<Connection> connections = connectionsByUser.compute(userId, (id, existing) -> {
+            ConcurrentLinkedDeque<Connection> deque = existing != null ? existing : new ConcurrentLinkedDeque<>();
+            deque.add(connection);
+            return deque;
+        });
+        // A user with many tabs keeps their newest streams
+        while (connections.size() > maxConnectionsPerUser) {
+            Connection oldest = connections.poll();
+            if (oldest == null) {
+                break;
+            }
+            oldest.close();
+        }
+
+        try {
+            // Sent before the handler returns, so the response starts streaming right away
+            emitter.send(SseEmitter.event().reconnectTime(reconnectMillis).comment("connected"));
+        } catch (IOException e) {
+            connection.close();
+            return emitter;
+        }
+        // Replays after lastEventId, or picks up anything committed between reading the cursor and registering
+        connection.signal();
+        return emitter;
+    }
+
+    // Takes effect once the current transaction commits, so a stream never reads ahead of the data
+    public void publish(Long userId) {
+        afterCommit(() -> signal(userId));
+    }
+
+    public void publish(Collection<Long> userIds) {
+        afterCommit(() -> userIds.forEach(this::signal));
+    }
+
+    @Scheduled(fixedRateString = "${notifications.stream.heartbeat-interval-ms:25000}")
+    public void sendHeartbeats() {
+        for (ConcurrentLinkedDeque<Connection> connections : connectionsByUser.values()) {
+            for (Connection connection : connections) {
+                connection.heartbeat();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        connectionsByUser.values().forEach(connections -> connections.forEach(Connection::close));
+    }
+
+    private void signal(Long userId) {
+        ConcurrentLinkedDeque<Connection> connections = connectionsByUser.get(userId);
+        if (connections != null) {
+            connections.forEach(Connection::signal);
+        }
+    }
+
+    private long latestNotificationId(Long userId) {
+        Long latest = notificationRepository.findLatestIdByUserId(userId);
+        return latest != null ? latest : 0L;
+    }
+
+    private void remove(Connection connection) {
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+        connectionCount.decrementAndGet();
+        connectionsByUser.computeIfPresent(connection.userId, (userId, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Set when there may be unsent notifications; cleared by the sender before it reads them
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+        // Whether a send task is queued or running; at most one per connection
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // Only touched by the send task
+        private long lastSentId;
+
+        private Connection(Long userId, SseEmitter emitter, long lastSentId) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.lastSentId = lastSentId;
+        }
+
+        void signal() {
+            pending.set(true);
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        private void schedule() {
+            if (closed.get() || !scheduled.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::send);
+            } catch (RejectedExecutionException e) {
+                // The flags stay set, so the next heartbeat tries again
+                scheduled.set(false);
+            }
+        }
+
+        private void send() {
+            try {
+                boolean sentAny = false;
+                if (pending.getAndSet(false)) {
+                    List<Notification> notifications = notificationRepository.findByUserIdAfterId(
+                            userId, lastSentId, PageRequest.of(0, batchSize));
+                    for (Notification notification : notifications) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(notification.getId()))
+                                .name(EVENT_NAME)
+                                .data(NotificationDTO.fromNotification(notification)));
+                        lastSentId = notification.getId();
+                        eventsSent.increment();
+                    }
+                    sentAny = !notifications.isEmpty();
+                    // A full page means there may be more; yield to other connections before reading on
+                    if (notifications.size() == batchSize) {
+                        pending.set(true);
+                    }
+                }
+                if (heartbeatDue.getAndSet(false) && !sentAny) {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("Closing notification stream of user {}: {}", userId, e.getMessage());
+                close();
+                return;
+            }
+
+            scheduled.set(false);
+            if (pending.get() || heartbeatDue.get()) {
+                schedule();
+            }
+        }
+
+        void close() {
+            remove(this);
+            emitter.complete();
+        }
+    }
+}
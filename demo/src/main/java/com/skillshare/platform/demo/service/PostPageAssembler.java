@@ -0,0 +1,84 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.stereotype.Component;
+
+import com.skillshare.platform.demo.dto.MediaDTO;
+import com.skillshare.platform.demo.dto.PostDTO;
+import com.skillshare.platform.demo.dto.UserDTO;
+import com.skillshare.platform.demo.model.Post;
+import com.skillshare.platform.demo.repository.LikeRepository;
+import com.skillshare.platform.demo.repository.MediaRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds {@link PostDTO}s for a whole page of posts at once.
+ *
+ * Instead of letting every post lazily load its media and likes, the liked
+ * flags and media are resolved with one set-based query each for the entire
+ * page. Like, comment and follower counts come from the denormalized counter
+ * columns on the already loaded posts and authors.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostPageAssembler {
+
+    private final LikeRepository likeRepository;
+    private final MediaRepository mediaRepository;
+
+    public Page<PostDTO> toDTOPage(Page<Post> posts, Long currentUserId) {
+        return new PageImpl<>(toDTOs(posts.getContent(), currentUserId), posts.getPageable(), posts.getTotalElements());
+    }
+
+    public PostDTO toDTO(Post post, Long currentUserId) {
+        return toDTOs(List.of(post), currentUserId).get(0);
+    }
+
+    // Sets the isLiked flag of every post in the list with one query
+    public <T extends Collection<PostDTO>> T applyLikedStatus(Long currentUserId, T posts) {
+        if (currentUserId == null || posts.isEmpty()) {
+            return posts;
+        }
+        Set<Long> likedPostIds = new HashSet<>(likeRepository.findLikedPostIds(
+                currentUserId, posts.stream().map(PostDTO::getId).collect(Collectors.toList())));
+        posts.forEach(post -> post.setLiked(likedPostIds.contains(post.getId())));
+        return posts;
+    }
+
+    public List<PostDTO> toDTOs(List<Post> posts, Long currentUserId) {
+        if (posts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> postIds = posts.stream().map(Post::getId).collect(Collectors.toList());
+
+        Set<Long> likedPostIds = currentUserId != null
+                ? new HashSet<>(likeRepository.findLikedPostIds(currentUserId, postIds))
+                : Set.of();
+        Map<Long, List<MediaDTO>> mediaByPostId = mediaRepository.findByPostIdInOrderByIdAsc(postIds).stream()
+                .collect(Collectors.groupingBy(media -> media.getPost().getId(),
+                        Collectors.mapping(MediaDTO::fromMedia, Collectors.toList())));
+
+        Map<Long, UserDTO> authors = new HashMap<>();
+        List<PostDTO> dtos = new ArrayList<>(posts.size());
+        for (Post post : posts) {
+            UserDTO author = authors.computeIfAbsent(post.getUser().getId(), id -> UserDTO.fromUser(post.getUser()));
+            dtos.add(PostDTO.fromPost(
+                    post,
+                    author,
+                    mediaByPostId.getOrDefault(post.getId(), new ArrayList<>()),
+                    likedPostIds.contains(post.getId())));
+        }
+        return dtos;
+    }
+}
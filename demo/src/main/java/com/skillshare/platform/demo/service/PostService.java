@@ -1,68 +1,139 @@
 package com.skillshare.platform.demo.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.PostDTO;
 import com.skillshare.platform.demo.dto.request.PostRequest;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.Media;
 import com.skillshare.platform.demo.model.MediaType;
 import com.skillshare.platform.demo.model.Post;
 import com.skillshare.platform.demo.model.User;
-import com.skillshare.platform.demo.repository.LikeRepository;
 import com.skillshare.platform.demo.repository.MediaRepository;
 import com.skillshare.platform.demo.repository.PostRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
+import com.skillshare.platform.demo.service.FileStorageService.StoredFile;
+import com.skillshare.platform.demo.util.IdOrder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PostService {
 
+    private static final int MAX_MEDIA = 3;
+
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final MediaRepository mediaRepository;
-    private final LikeRepository likeRepository;
     private final FileStorageService fileStorageService;
     private final NotificationService notificationService;
+    private final PostPageAssembler postPageAssembler;
+    private final TimelineService timelineService;
+    private final SearchIndexService searchIndexService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final DtoCache dtoCache;
+    private final ChangeVersions changeVersions;
+    private final TransactionTemplate transactionTemplate;
 
     public Page<PostDTO> getAllPosts(Pageable pageable, Long currentUserId) {
         Page<Post> posts = postRepository.findAll(pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        return postPageAssembler.toDTOPage(posts, currentUserId);
     }
 
+    // The post is cached once for all viewers and the viewer's isLiked flag is applied to the copy
     public PostDTO getPostById(Long id, Long currentUserId) {
-        Post post = postRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id));
-        return mapPostToDTO(post, currentUserId);
+        PostDTO post = dtoCache.get(DtoCache.Region.POST, id, PostDTO.class, () -> mapPostToDTO(
+                postRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Post not found with id: " + id)),
+                null));
+        return postPageAssembler.applyLikedStatus(currentUserId, List.of(post)).get(0);
     }
 
     public Page<PostDTO> getPostsByUserId(Long userId, Pageable pageable, Long currentUserId) {
         Page<Post> posts = postRepository.findByUserIdOrderByCreatedAtDesc(userId, pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        return postPageAssembler.toDTOPage(posts, currentUserId);
     }
 
-    public Page<PostDTO> getFeedPosts(Long userId, Pageable pageable) {
-        Page<Post> posts = postRepository.findFeedPostsByUserId(userId, pageable);
-        return posts.map(post -> mapPostToDTO(post, userId));
+    // One read of the feed page, shared by the ETag check and the response built from it
+    public Page<Long> getFeedPostIds(Long userId, Pageable pageable) {
+        return timelineService.getTimelinePostIds(userId, pageable);
+    }
+
+    public Page<PostDTO> getFeedPosts(Long userId, Page<Long> postIds) {
+        Page<Post> posts = timelineService.getTimelinePosts(postIds);
+        return postPageAssembler.toDTOPage(posts, userId);
+    }
+
+    /**
+     * ETag of a feed page, built from the page's post ids, the columns that
+     * change their DTOs and the viewer's own likes, without mapping any post.
+     */
+    public String getFeedETag(Long userId, Page<Long> postIds) {
+        List<Object> changeKeys = new ArrayList<>();
+        if (!postIds.isEmpty()) {
+            postRepository.findChangeKeysByIdIn(postIds.getContent()).forEach(row -> changeKeys.add(Arrays.asList(row)));
+        }
+        Pageable pageable = postIds.getPageable();
+        return changeVersions.etag("feed", userId, pageable.getPageNumber(), pageable.getPageSize(),
+                postIds.getTotalElements(), postIds.getContent(), changeKeys,
+                changeVersions.version(ChangeVersions.Scope.LIKES, userId));
+    }
+
+    public CursorPage<PostDTO> getFeedPostsByCursor(Long userId, String cursor, int size, boolean includeTotal) {
+        List<Cursor> keys = timelineService.getTimelineKeysBefore(userId, Cursor.decode(cursor), size + 1);
+        Long totalElements = includeTotal ? timelineService.countTimeline(userId) : null;
+        return CursorPage.of(keys, size, Function.identity(),
+                pageKeys -> postPageAssembler.toDTOs(timelineService.loadPosts(pageKeys), userId),
+                totalElements);
     }
 
     public Page<PostDTO> searchPosts(String query, Pageable pageable, Long currentUserId) {
-        Page<Post> posts = postRepository.searchPosts(query, pageable);
-        return posts.map(post -> mapPostToDTO(post, currentUserId));
+        Page<Long> postIds = searchIndexService.search(SearchIndexService.DocumentType.POST, query, pageable);
+        List<Post> posts = IdOrder.inIdOrder(postIds.getContent(), postRepository.findByIdIn(postIds.getContent()), Post::getId);
+        return new PageImpl<>(postPageAssembler.toDTOs(posts, currentUserId), pageable, postIds.getTotalElements());
     }
 
-    @Transactional
+    /**
+     * Media files are written before the transaction starts, so a slow upload
+     * never holds a database connection; if the post cannot be saved the files
+     * are removed again.
+     */
     public PostDTO createPost(PostRequest postRequest, Long userId, List<MultipartFile> files) {
+        List<String> uploadIds = postRequest.getUploadIds();
+        if (uploadIds != null && uploadIds.size() > MAX_MEDIA) {
+            // Unlike extra multipart files, uploads left out would stay claimable, so they are refused instead
+            throw new IllegalArgumentException("A post can have at most " + MAX_MEDIA + " media files");
+        }
+        List<StoredFile> storedFiles = new ArrayList<>();
+        try {
+            storedFiles.addAll(chunkedUploadService.claimUploads(uploadIds, userId));
+            storedFiles.addAll(storeFiles(limit(files, MAX_MEDIA - storedFiles.size())));
+            return transactionTemplate.execute(status -> savePost(postRequest, userId, storedFiles));
+        } catch (RuntimeException e) {
+            discardFiles(storedFiles);
+            throw e;
+        }
+    }
+
+    private PostDTO savePost(PostRequest postRequest, Long userId, List<StoredFile> storedFiles) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
@@ -75,10 +146,19 @@ public class PostService {
 
         Post savedPost = postRepository.save(post);
 
-        if (files != null && !files.isEmpty()) {
-            processAndSaveMedia(savedPost, files);
+        for (StoredFile storedFile : storedFiles) {
+            Media media = Media.builder()
+                    .post(savedPost)
+                    .url(storedFile.url())
+                    .type(determineMediaType(storedFile.contentType()))
+                    .build();
+            savedPost.getMedia().add(mediaRepository.save(media));
+            imageDerivativeService.generateVariants(storedFile.url());
         }
 
+        timelineService.fanOut(savedPost);
+        searchIndexService.indexPost(savedPost);
+
         return mapPostToDTO(savedPost, userId);
     }
 
@@ -93,8 +173,10 @@ public class PostService {
 
         post.setContent(postRequest.getContent());
         post.setType(postRequest.getType());
+        dtoCache.evict(DtoCache.Region.POST, id);
 
         Post updatedPost = postRepository.save(post);
+        searchIndexService.indexPost(updatedPost);
         return mapPostToDTO(updatedPost, userId);
     }
 
@@ -113,36 +195,48 @@ public class PostService {
                 fileStorageService.deleteFile(media.getUrl());
             } catch (IOException e) {
                 // Log error but continue with deletion
-                System.err.println("Error deleting file: " + e.getMessage());
+                log.warn("Could not delete file {}: {}", media.getUrl(), e.getMessage());
             }
         });
 
+        dtoCache.evict(DtoCache.Region.POST, id);
+        timelineService.removePost(id);
+        searchIndexService.remove(SearchIndexService.DocumentType.POST, id);
         postRepository.delete(post);
     }
 
-    private void processAndSaveMedia(Post post, List<MultipartFile> files) {
-        // Limit to 3 files
-        List<MultipartFile> limitedFiles = files.size() > 3 ? files.subList(0, 3) : files;
+    private List<StoredFile> storeFiles(List<MultipartFile> files) {
+        List<StoredFile> storedFiles = new ArrayList<>();
+        try {
+            for (MultipartFile file : files) {
+                try (InputStream in = file.getInputStream()) {
+                    storedFiles.add(fileStorageService.store(in, file.getOriginalFilename(), file.getContentType()));
+                }
+            }
+            return storedFiles;
+        } catch (IOException e) {
+            discardFiles(storedFiles);
+            throw new RuntimeException("Could not store file", e);
+        }
+    }
 
-        for (MultipartFile file : limitedFiles) {
+    private void discardFiles(List<StoredFile> storedFiles) {
+        for (StoredFile storedFile : storedFiles) {
             try {
-                String fileUrl = fileStorageService.storeFile(file);
-                MediaType mediaType = determineMediaType(file.getContentType());
-
-                Media media = Media.builder()
-                        .post(post)
-                        .url(fileUrl)
-                        .type(mediaType)
-                        .build();
-
-                mediaRepository.save(media);
-                post.getMedia().add(media);
+                fileStorageService.deleteFile(storedFile.url());
             } catch (IOException e) {
-                throw new RuntimeException("Could not store file", e);
+                log.warn("Could not discard stored file {}: {}", storedFile.url(), e.getMessage());
             }
         }
     }
 
+    private static <T> List<T> limit(List<T> items, int max) {
+        if (items == null || max <= 0) {
+            return new ArrayList<>();
+        }
+        return items.size() > max ? items.subList(0, max) : items;
+    }
+
     private MediaType determineMediaType(String contentType) {
         if (contentType != null) {
             if (contentType.startsWith("image/")) {
@@ -155,10 +249,6 @@ public class PostService {
     }
 
     private PostDTO mapPostToDTO(Post post, Long currentUserId) {
-        boolean isLiked = false;
-        if (currentUserId != null) {
-            isLiked = likeRepository.existsByUserIdAndPostId(currentUserId, post.getId());
-        }
-        return PostDTO.fromPost(post, isLiked);
+        return postPageAssembler.toDTO(post, currentUserId);
     }
 }
@@ -0,0 +1,359 @@
+package com.skillshare.platform.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.skillshare.platform.demo.model.LearningPlan;
+import com.skillshare.platform.demo.model.Post;
+import com.skillshare.platform.demo.model.User;
+import com.skillshare.platform.demo.repository.LearningPlanRepository;
+import com.skillshare.platform.demo.repository.PostRepository;
+import com.skillshare.platform.demo.repository.UserRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Embedded Lucene index over posts, users and learning plans.
+ *
+ * Documents are updated after the surrounding transaction commits, searched
+ * through a near-real-time {@link SearcherManager} and committed to disk on a
+ * schedule. {@link #rebuildIndex()} recreates the whole index from the database.
+ */
+@Service
+@Slf4j
+public class SearchIndexService {
+
+    public enum DocumentType {
+        POST,
+        USER,
+        LEARNING_PLAN
+    }
+
+    private static final String FIELD_KEY = "key";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_TEXT = "text";
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final LearningPlanRepository learningPlanRepository;
+    private final String indexDir;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public SearchIndexService(
+            PostRepository postRepository,
+            UserRepository userRepository,
+            LearningPlanRepository learningPlanRepository,
+            @Value("${search.index-dir:./search-index}") String indexDir) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.learningPlanRepository = learningPlanRepository;
+        this.indexDir = indexDir;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        log.info("Opening search index at {}", Paths.get(indexDir).toAbsolutePath().normalize());
+        directory = FSDirectory.open(Paths.get(indexDir));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.commit();
+        writer.close();
+        directory.close();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (writer.getDocStats().numDocs == 0) {
+            log.info("Search index is empty, building it from the database");
+            rebuildIndex();
+        }
+    }
+
+    public void indexPost(Post post) {
+        index(DocumentType.POST, post.getId(), toDocument(post));
+    }
+
+    public void indexUser(User user) {
+        index(DocumentType.USER, user.getId(), toDocument(user));
+    }
+
+    public void indexLearningPlan(LearningPlan learningPlan) {
+        index(DocumentType.LEARNING_PLAN, learningPlan.getId(), toDocument(learningPlan));
+    }
+
+    public void remove(DocumentType type, Long id) {
+        Term key = keyTerm(type, id);
+        afterCommit(indexWriter -> {
+            try {
+                indexWriter.deleteDocuments(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Ranked search returning the matching ids for one page. Every query term must
+     * match, either exactly, as a prefix or within a small edit distance.
+     */
+    public Page<Long> search(DocumentType type, String queryText, Pageable pageable) {
+        Query query = buildQuery(type, queryText);
+        if (query == null) {
+            return Page.empty(pageable);
+        }
+
+        int offset = (int) pageable.getOffset();
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopScoreDocCollector collector = TopScoreDocCollector.create(offset + pageable.getPageSize(), Integer.MAX_VALUE);
+            searcher.search(query, collector);
+            TopDocs topDocs = collector.topDocs(offset, pageable.getPageSize());
+
+            List<Long> ids = new ArrayList<>(topDocs.scoreDocs.length);
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                ids.add(searcher.storedFields().document(scoreDoc.doc).getField(FIELD_ID).numericValue().longValue());
+            }
+            return new PageImpl<>(ids, pageable, collector.getTotalHits());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Search failed", e);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    public synchronized void rebuildIndex() {
+        long started = System.currentTimeMillis();
+        try {
+            writer.deleteAll();
+            int posts = reindex(DocumentType.POST, postRepository::findAll, Post::getId, this::toDocument);
+            int users = reindex(DocumentType.USER, userRepository::findAll, User::getId, this::toDocument);
+            int plans = reindex(DocumentType.LEARNING_PLAN, learningPlanRepository::findAll,
+                    LearningPlan::getId, this::toDocument);
+            writer.commit();
+            searcherManager.maybeRefresh();
+            log.info("Rebuilt search index with {} posts, {} users and {} learning plans in {} ms",
+                    posts, users, plans, System.currentTimeMillis() - started);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rebuild the search index", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.commit-interval-ms:30000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.error("Failed to commit search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pages through all entities in id order, so rows are neither skipped nor
+     * repeated between pages. Documents are written by key, since entities
+     * saved during the rebuild may already have been indexed by {@link #index}.
+     */
+    private <T> int reindex(DocumentType type, Function<Pageable, Page<T>> pageLoader, Function<T, Long> idOf,
+                            Function<T, Document> toDocument) throws IOException {
+        int count = 0;
+        Page<T> page = pageLoader.apply(PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id")));
+        while (true) {
+            for (T entity : page.getContent()) {
+                writer.updateDocument(keyTerm(type, idOf.apply(entity)), toDocument.apply(entity));
+                count++;
+            }
+            if (!page.hasNext()) {
+                return count;
+            }
+            page = pageLoader.apply(page.nextPageable());
+        }
+    }
+
+    private void index(DocumentType type, Long id, Document document) {
+        Term key = keyTerm(type, id);
+        afterCommit(indexWriter -> {
+            try {
+                indexWriter.updateDocument(key, document);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Index changes only become visible once the database change they mirror is committed
+    private void afterCommit(Consumer<IndexWriter> operation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(operation);
+                }
+            });
+        } else {
+            apply(operation);
+        }
+    }
+
+    private void apply(Consumer<IndexWriter> operation) {
+        try {
+            operation.accept(writer);
+            searcherManager.maybeRefresh();
+        } catch (IOException | UncheckedIOException e) {
+            // The index is derived data; a rebuild repairs anything missed here
+            log.error("Failed to update search index: {}", e.getMessage(), e);
+        }
+    }
+
+    private Query buildQuery(DocumentType type, String queryText) {
+        List<String> terms = analyze(queryText);
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(FIELD_TYPE, type.name())), BooleanClause.Occur.FILTER);
+        for (String term : terms) {
+            BooleanQuery.Builder termQuery = new BooleanQuery.Builder()
+                    .add(new BoostQuery(new TermQuery(new Term(FIELD_TITLE, term)), 4f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new TermQuery(new Term(FIELD_TEXT, term)), 3f), BooleanClause.Occur.SHOULD)
+                    .add(new BoostQuery(new PrefixQuery(new Term(FIELD_TEXT, term)), 2f), BooleanClause.Occur.SHOULD);
+            if (term.length() >= 3) {
+                int maxEdits = term.length() > 5 ? 2 : 1;
+                termQuery.add(new FuzzyQuery(new Term(FIELD_TEXT, term), maxEdits), BooleanClause.Occur.SHOULD);
+            }
+            query.add(termQuery.build(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return terms;
+        }
+        try (TokenStream tokenStream = analyzer.tokenStream(FIELD_TEXT, text)) {
+            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                terms.add(termAttribute.toString());
+            }
+            tokenStream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return terms;
+    }
+
+    private Document toDocument(Post post) {
+        return document(DocumentType.POST, post.getId(), null, post.getContent());
+    }
+
+    private Document toDocument(User user) {
+        String title = join(user.getUsername(), user.getName());
+        return document(DocumentType.USER, user.getId(), title, join(title, user.getBio()));
+    }
+
+    private Document toDocument(LearningPlan learningPlan) {
+        return document(DocumentType.LEARNING_PLAN, learningPlan.getId(), learningPlan.getTitle(),
+                join(learningPlan.getTitle(), learningPlan.getDescription()));
+    }
+
+    private Document document(DocumentType type, Long id, String title, String text) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_KEY, key(type, id), Field.Store.NO));
+        document.add(new StringField(FIELD_TYPE, type.name(), Field.Store.NO));
+        document.add(new StoredField(FIELD_ID, id));
+        if (title != null) {
+            document.add(new TextField(FIELD_TITLE, title, Field.Store.NO));
+        }
+        document.add(new TextField(FIELD_TEXT, text != null ? text : "", Field.Store.NO));
+        return document;
+    }
+
+    private Term keyTerm(DocumentType type, Long id) {
+        return new Term(FIELD_KEY, key(type, id));
+    }
+
+    private String key(DocumentType type, Long id) {
+        return type.name() + ":" + id;
+    }
+
+    private String join(String first, String second) {
+        if (first == null) {
+            return second;
+        }
+        return second == null ? first : first + " " + second;
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("Failed to release index searcher: {}", e.getMessage());
+        }
+    }
+}
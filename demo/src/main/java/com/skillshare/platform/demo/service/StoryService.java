@@ -12,16 +12,20 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,26 +37,54 @@ public class StoryService {
     private final StoryRepository storyRepository;
     private final UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final ActiveStoryIndex activeStoryIndex;
+    private final FollowGraph followGraph;
+    private final StoryViewBuffer storyViewBuffer;
+    private final ImageDerivativeService imageDerivativeService;
+    private final DtoCache dtoCache;
+    private final ChangeVersions changeVersions;
+    private final TransactionTemplate transactionTemplate;
 
     public Page<StoryDTO> getAllStories(Pageable pageable, Long currentUserId) {
         Page<Story> stories = storyRepository.findByExpiresAtAfter(LocalDateTime.now(), pageable);
-        return stories.map(story -> mapStoryToDTO(story, currentUserId));
+        return new PageImpl<>(toDTOs(stories.getContent(), currentUserId), stories.getPageable(), stories.getTotalElements());
     }
 
     public List<StoryDTO> getUserStories(Long userId, Long currentUserId) {
-        List<Story> stories = storyRepository.findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(userId, LocalDateTime.now());
-        return stories.stream().map(story -> mapStoryToDTO(story, currentUserId)).collect(Collectors.toList());
+        return loadStories(activeStoryIndex.getActiveStoryIds(List.of(userId)), currentUserId);
     }
 
     public List<StoryDTO> getFeedStories(Long userId) {
-        List<Story> stories = storyRepository.findStoriesFromFollowedUsers(userId, LocalDateTime.now());
-        return stories.stream().map(story -> mapStoryToDTO(story, userId)).collect(Collectors.toList());
+        return loadStories(getFeedStoryIds(userId), userId);
     }
 
-    @Transactional
+    // Built from the in-memory story index and the viewer's own views, so checking it touches no tables
+    public String getFeedStoriesETag(Long userId) {
+        return changeVersions.etag("stories", userId, getFeedStoryIds(userId),
+                changeVersions.version(ChangeVersions.Scope.STORY_VIEWS, userId));
+    }
+
+    private List<Long> getFeedStoryIds(Long userId) {
+        List<Long> followingIds = Arrays.stream(followGraph.getFollowingIds(userId)).boxed().collect(Collectors.toList());
+        return activeStoryIndex.getActiveStoryIds(followingIds);
+    }
+
+    // Takes cached stories where possible and loads the rest in one query, keeping the index's newest-first order
+    private List<StoryDTO> loadStories(List<Long> storyIds, Long currentUserId) {
+        if (storyIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<StoryDTO> stories = dtoCache.getAll(DtoCache.Region.STORY, storyIds, StoryDTO.class,
+                missingIds -> storyRepository.findByIdIn(missingIds).stream()
+                        .collect(Collectors.toMap(Story::getId, StoryDTO::fromStory)));
+        return applyViewedStatus(currentUserId, stories);
+    }
+
+    // Not transactional: the media file is stored first, so no connection is held while it is written
     public StoryDTO createStory(StoryRequest request, MultipartFile mediaFile, Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
 
         String mediaUrl;
         try {
@@ -62,6 +94,17 @@ public class StoryService {
         }
 
         MediaType mediaType = determineMediaType(mediaFile.getContentType());
+        try {
+            return transactionTemplate.execute(status -> saveStory(request, mediaUrl, mediaType, userId));
+        } catch (RuntimeException e) {
+            discardFile(mediaUrl);
+            throw e;
+        }
+    }
+
+    private StoryDTO saveStory(StoryRequest request, String mediaUrl, MediaType mediaType, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
 
         Story story = Story.builder()
                 .user(user)
@@ -73,24 +116,26 @@ public class StoryService {
                 .expiresAt(LocalDateTime.now().plusHours(24))
                 .build();
 
-        return StoryDTO.fromStory(storyRepository.save(story));
+        story = storyRepository.save(story);
+        activeStoryIndex.storyCreated(story);
+        imageDerivativeService.generateVariants(mediaUrl);
+        return StoryDTO.fromStory(story);
     }
 
-    @Transactional
-    public void viewStory(Long storyId, Long userId) {
-        Story story = storyRepository.findById(storyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Story not found with id: " + storyId));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-
-        if (story.getViewers() == null) {
-            story.setViewers(new HashSet<>());
+    private void discardFile(String mediaUrl) {
+        try {
+            fileStorageService.deleteFile(mediaUrl);
+        } catch (IOException e) {
+            logger.warn("Could not discard stored file {}: {}", mediaUrl, e.getMessage());
         }
+    }
 
-        if (!story.getViewers().contains(user)) {
-            story.getViewers().add(user);
-            storyRepository.save(story);
+    public void viewStory(Long storyId, Long userId) {
+        if (!storyRepository.existsById(storyId)) {
+            throw new ResourceNotFoundException("Story not found with id: " + storyId);
         }
+        // Written to story_viewers by the next batch flush; duplicate views are ignored there
+        storyViewBuffer.record(storyId, userId);
     }
 
     @Transactional
@@ -109,20 +154,8 @@ public class StoryService {
         }
 
         storyRepository.delete(story);
-    }
-
-    @Scheduled(fixedRate = 3600000)
-    @Transactional
-    public void cleanupExpiredStories() {
-        List<Story> expiredStories = storyRepository.findByExpiresAtBefore(LocalDateTime.now());
-        for (Story story : expiredStories) {
-            try {
-                fileStorageService.deleteFile(story.getMediaUrl());
-            } catch (IOException e) {
-                logger.error("Error deleting file during cleanup: {}", e.getMessage());
-            }
-        }
-        storyRepository.deleteAll(expiredStories);
+        activeStoryIndex.storyDeleted(storyId);
+        dtoCache.evict(DtoCache.Region.STORY, storyId);
     }
 
     private MediaType determineMediaType(String contentType) {
@@ -133,10 +166,19 @@ public class StoryService {
         return MediaType.IMAGE;
     }
 
-    private StoryDTO mapStoryToDTO(Story story, Long currentUserId) {
-        boolean viewed = story.getViewers() != null &&
-                         currentUserId != null &&
-                         story.getViewers().stream().anyMatch(u -> u.getId().equals(currentUserId));
-        return StoryDTO.fromStory(story, viewed);
+    private List<StoryDTO> toDTOs(List<Story> stories, Long currentUserId) {
+        return applyViewedStatus(currentUserId, stories.stream().map(StoryDTO::fromStory).collect(Collectors.toList()));
+    }
+
+    // Resolves the "viewed by me" flags of a whole list with one query plus the pending view buffer
+    private List<StoryDTO> applyViewedStatus(Long currentUserId, List<StoryDTO> stories) {
+        if (currentUserId == null || stories.isEmpty()) {
+            return stories;
+        }
+        List<Long> storyIds = stories.stream().map(StoryDTO::getId).collect(Collectors.toList());
+        Set<Long> viewedIds = new HashSet<>(storyRepository.findViewedStoryIds(currentUserId, storyIds));
+        viewedIds.addAll(storyViewBuffer.pendingViewsOf(currentUserId, storyIds));
+        stories.forEach(story -> story.setViewed(viewedIds.contains(story.getId())));
+        return stories;
     }
 }
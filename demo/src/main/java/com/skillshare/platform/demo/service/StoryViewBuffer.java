@@ -0,0 +1,154 @@
+package com.skillshare.platform.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Buffers story views in memory and writes them to story_viewers in batches.
+ *
+ * Every flush inserts the views of each story with one multi-row
+ * {@code INSERT IGNORE} and adds the number of rows it actually inserted to
+ * the story's views_count, so counts stay exact even when another writer
+ * stores the same view, and the cost of a flush depends on the views in it
+ * and never on how many viewers a story already has. Views stay visible as
+ * "viewed" while they are still pending, so a viewer never sees an unread
+ * ring for a story they just opened. While flushes fail the buffer does not
+ * grow past its limit: further views are dropped until a flush succeeds.
+ */
+@Component
+@Slf4j
+public class StoryViewBuffer {
+
+    private static final String INSERT_VIEWS = "INSERT IGNORE INTO story_viewers (story_id, user_id) VALUES ";
+    private static final String ADD_VIEWS = "UPDATE stories SET views_count = views_count + ? WHERE id = ?";
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    private final ChangeVersions changeVersions;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+
+    private final Set<StoryView> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean flushFailing;
+
+    public StoryViewBuffer(
+            ChangeVersions changeVersions,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${stories.views.max-pending:100000}") int maxPending) {
+        this.changeVersions = changeVersions;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxPending = maxPending;
+    }
+
+    public void record(Long storyId, Long userId) {
+        if (pending.size() >= maxPending && !flushFailing) {
+            // Back-pressure: the request that fills the buffer pays for the flush
+            flush();
+        }
+        if (pending.size() >= maxPending) {
+            // The last flush failed; retrying it inline on every request would only pile up failing requests
+            dropped.incrementAndGet();
+            return;
+        }
+        if (pending.add(new StoryView(storyId, userId))) {
+            changeVersions.bump(ChangeVersions.Scope.STORY_VIEWS, userId);
+        }
+    }
+
+    // Ids of the given stories the user has viewed but that are not yet written
+    public Set<Long> pendingViewsOf(Long userId, Collection<Long> storyIds) {
+        Set<Long> viewed = new HashSet<>();
+        for (Long storyId : storyIds) {
+            if (pending.contains(new StoryView(storyId, userId))) {
+                viewed.add(storyId);
+            }
+        }
+        return viewed;
+    }
+
+    @Scheduled(fixedDelayString = "${stories.views.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Views recorded while this flush runs stay pending for the next one
+        List<StoryView> views = new ArrayList<>(pending);
+        // Sorted, so concurrent writers lock story_viewers rows in the same order
+        Map<Long, List<Long>> viewersByStory = views.stream().collect(Collectors.groupingBy(
+                StoryView::storyId, TreeMap::new, Collectors.mapping(StoryView::userId, Collectors.toList())));
+
+        try {
+            Integer added = transactionTemplate.execute(status -> {
+                int total = 0;
+                List<Object[]> deltas = new ArrayList<>();
+                for (Map.Entry<Long, List<Long>> entry : viewersByStory.entrySet()) {
+                    int inserted = insertViews(entry.getKey(), entry.getValue());
+                    if (inserted > 0) {
+                        deltas.add(new Object[]{inserted, entry.getKey()});
+                        total += inserted;
+                    }
+                }
+                if (!deltas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(ADD_VIEWS, deltas);
+                }
+                return total;
+            });
+            views.forEach(pending::remove);
+            flushFailing = false;
+            log.debug("Flushed {} story views, {} of them new", views.size(), added);
+            long droppedViews = dropped.getAndSet(0);
+            if (droppedViews > 0) {
+                log.warn("Dropped {} story views while the view buffer could not be flushed", droppedViews);
+            }
+        } catch (RuntimeException e) {
+            flushFailing = true;
+            log.error("Failed to flush {} story views, retrying on the next flush: {}", views.size(), e.getMessage(), e);
+        }
+    }
+
+    // A multi-row INSERT IGNORE reports the rows it actually inserted, unlike the driver's rewritten batches
+    private int insertViews(Long storyId, List<Long> userIds) {
+        userIds.sort(null);
+        int inserted = 0;
+        for (int from = 0; from < userIds.size(); from += INSERT_CHUNK_SIZE) {
+            List<Long> chunk = userIds.subList(from, Math.min(userIds.size(), from + INSERT_CHUNK_SIZE));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = storyId;
+                args[2 * i + 1] = chunk.get(i);
+            }
+            String sql = INSERT_VIEWS + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)"));
+            inserted += jdbcTemplate.update(sql, args);
+        }
+        return inserted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private record StoryView(Long storyId, Long userId) {
+    }
+}
@@ -0,0 +1,219 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.skillshare.platform.demo.repository.PostRepository;
+import com.skillshare.platform.demo.repository.UserRepository;
+import com.skillshare.platform.demo.repository.UserSuggestionRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Personalized "who to follow" suggestions.
+ *
+ * A periodic job walks the in-memory follow graph and scores, for every user,
+ * the accounts followed by the people they follow (friends-of-friends), the
+ * accounts that share their followings (co-followers) and followers they have
+ * not followed back. Scores are boosted by each candidate's recent posting
+ * activity and the top results are stored in user_suggestions, so serving
+ * suggestions is a single keyed read. Users without stored suggestions fall
+ * back to the most followed accounts.
+ */
+@Service
+@Slf4j
+public class SuggestionService {
+
+    private static final String UPSERT_SUGGESTION =
+            "INSERT INTO user_suggestions (user_id, suggested_user_id, score, computed_at) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE score = VALUES(score), computed_at = VALUES(computed_at)";
+
+    private static final double FRIEND_OF_FRIEND_WEIGHT = 1.0;
+    private static final double CO_FOLLOWER_WEIGHT = 0.5;
+    private static final double FOLLOWS_YOU_WEIGHT = 2.0;
+
+    private static final int MAX_LIMIT = 50;
+
+    private final FollowGraph followGraph;
+    private final UserSuggestionRepository userSuggestionRepository;
+    private final UserRepository userRepository;
+    private final PostRepository postRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int suggestionsPerUser;
+    private final int maxNeighbours;
+    private final int activityDays;
+    private final int writeBatchSize;
+
+    public SuggestionService(
+            FollowGraph followGraph,
+            UserSuggestionRepository userSuggestionRepository,
+            UserRepository userRepository,
+            PostRepository postRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${suggestions.per-user:20}") int suggestionsPerUser,
+            @Value("${suggestions.max-neighbours:500}") int maxNeighbours,
+            @Value("${suggestions.activity-days:30}") int activityDays,
+            @Value("${suggestions.write-batch-size:1000}") int writeBatchSize) {
+        this.followGraph = followGraph;
+        this.userSuggestionRepository = userSuggestionRepository;
+        this.userRepository = userRepository;
+        this.postRepository = postRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.suggestionsPerUser = suggestionsPerUser;
+        this.maxNeighbours = maxNeighbours;
+        this.activityDays = activityDays;
+        this.writeBatchSize = writeBatchSize;
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Suggested account ids for the user, best first, never including the user
+     * or accounts they already follow.
+     */
+    public List<Long> getSuggestedUserIds(Long userId, int limit) {
+        limit = clampLimit(limit);
+        Set<Long> result = new LinkedHashSet<>();
+        // Follows made since the last refresh are filtered out here, so over-fetch a little
+        for (Long suggestedId : userSuggestionRepository.findSuggestedUserIds(userId, PageRequest.of(0, limit * 2))) {
+            if (result.size() < limit && isCandidate(userId, suggestedId)) {
+                result.add(suggestedId);
+            }
+        }
+        if (result.size() < limit) {
+            // Followed accounts are excluded in the query, so at most the ones already picked need skipping
+            for (Long popularId : userRepository.findMostFollowedIdsNotFollowedBy(userId, limit + result.size())) {
+                if (result.size() < limit && isCandidate(userId, popularId)) {
+                    result.add(popularId);
+                }
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    @Scheduled(initialDelayString = "${suggestions.refresh-initial-delay-ms:300000}",
+            fixedDelayString = "${suggestions.refresh-interval-ms:3600000}")
+    public void refreshSuggestions() {
+        long started = System.currentTimeMillis();
+        LocalDateTime refreshStartedAt = LocalDateTime.now();
+        Map<Long, Long> recentPosts = loadRecentPostCounts(refreshStartedAt.minusDays(activityDays));
+        Timestamp computedAt = Timestamp.valueOf(refreshStartedAt);
+
+        List<Object[]> batch = new ArrayList<>(writeBatchSize);
+        int users = 0;
+        for (Long userId : followGraph.getUserIds()) {
+            for (Scored suggestion : computeSuggestions(userId, recentPosts)) {
+                batch.add(new Object[]{userId, suggestion.userId(), suggestion.score(), computedAt});
+            }
+            if (batch.size() >= writeBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(writeBatchSize);
+            }
+            users++;
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+
+        Integer removed = transactionTemplate.execute(status ->
+                userSuggestionRepository.deleteComputedBefore(refreshStartedAt));
+        log.info("Refreshed suggestions for {} users in {} ms ({} stale rows removed)",
+                users, System.currentTimeMillis() - started, removed);
+    }
+
+    private List<Scored> computeSuggestions(Long userId, Map<Long, Long> recentPosts) {
+        Map<Long, Double> scores = new HashMap<>();
+
+        for (long followedId : sample(followGraph.getFollowingIds(userId))) {
+            // Accounts followed by the accounts this user follows
+            for (long candidateId : sample(followGraph.getFollowingIds(followedId))) {
+                scores.merge(candidateId, FRIEND_OF_FRIEND_WEIGHT, Double::sum);
+            }
+            // Other followers of the same accounts have similar interests
+            for (long candidateId : sample(followGraph.getFollowerIds(followedId))) {
+                scores.merge(candidateId, CO_FOLLOWER_WEIGHT, Double::sum);
+            }
+        }
+        for (long followerId : sample(followGraph.getFollowerIds(userId))) {
+            scores.merge(followerId, FOLLOWS_YOU_WEIGHT, Double::sum);
+        }
+
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::score));
+        scores.forEach((candidateId, score) -> {
+            if (!isCandidate(userId, candidateId)) {
+                return;
+            }
+            double weighted = score * (1 + Math.log1p(recentPosts.getOrDefault(candidateId, 0L)));
+            top.offer(new Scored(candidateId, weighted));
+            if (top.size() > suggestionsPerUser) {
+                top.poll();
+            }
+        });
+        return new ArrayList<>(top);
+    }
+
+    private boolean isCandidate(Long userId, Long candidateId) {
+        return !candidateId.equals(userId) && !followGraph.isFollowing(userId, candidateId);
+    }
+
+    /**
+     * Caps how many neighbours of one node are walked, so very popular accounts
+     * do not dominate the run. Larger lists are sampled uniformly with Floyd's
+     * algorithm, which draws maxNeighbours distinct positions without copying
+     * the shared array; taking a prefix would always favour the oldest accounts.
+     */
+    private long[] sample(long[] ids) {
+        if (ids.length <= maxNeighbours) {
+            return ids;
+        }
+        Set<Integer> positions = new HashSet<>(maxNeighbours * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int j = ids.length - maxNeighbours; j < ids.length; j++) {
+            int position = random.nextInt(j + 1);
+            positions.add(positions.contains(position) ? j : position);
+        }
+        long[] sampled = new long[maxNeighbours];
+        int i = 0;
+        for (int position : positions) {
+            sampled[i++] = ids[position];
+        }
+        return sampled;
+    }
+
+    private Map<Long, Long> loadRecentPostCounts(LocalDateTime since) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : postRepository.countPostsByAuthorSince(since)) {
+            counts.put(((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SUGGESTION, batch));
+    }
+
+    private record Scored(Long userId, double score) {
+    }
+}
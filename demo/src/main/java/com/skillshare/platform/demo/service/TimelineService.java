@@ -0,0 +1,181 @@
+package com.skillshare.platform.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.skillshare.platform.demo.dto.Cursor;
+import com.skillshare.platform.demo.model.Post;
+import com.skillshare.platform.demo.model.User;
+import com.skillshare.platform.demo.repository.PostRepository;
+import com.skillshare.platform.demo.repository.TimelineEntryRepository;
+import com.skillshare.platform.demo.util.IdOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Materialized home timelines.
+ *
+ * New posts are written into every follower's timeline when they are created
+ * (fan-out-on-write), so reading the feed is a keyed range read on
+ * timeline_entries. Authors with more than {@code timeline.fanout-max-followers}
+ * followers are skipped on write and merged into the feed at read time instead.
+ */
+@Service
+@Slf4j
+public class TimelineService {
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final PostRepository postRepository;
+    private final FollowGraph followGraph;
+    private final int fanOutMaxFollowers;
+    private final int maxLength;
+    private final int backfillSize;
+
+    public TimelineService(
+            TimelineEntryRepository timelineEntryRepository,
+            PostRepository postRepository,
+            FollowGraph followGraph,
+            @Value("${timeline.fanout-max-followers:10000}") int fanOutMaxFollowers,
+            @Value("${timeline.max-length:800}") int maxLength,
+            @Value("${timeline.backfill-size:50}") int backfillSize) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.postRepository = postRepository;
+        this.followGraph = followGraph;
+        this.fanOutMaxFollowers = fanOutMaxFollowers;
+        this.maxLength = maxLength;
+        this.backfillSize = backfillSize;
+    }
+
+    // Loads the posts of a page read with getTimelinePostIds, keeping its order
+    public Page<Post> getTimelinePosts(Page<Long> postIds) {
+        return new PageImpl<>(loadInOrder(postIds.getContent()), postIds.getPageable(), postIds.getTotalElements());
+    }
+
+    public Page<Long> getTimelinePostIds(Long userId, Pageable pageable) {
+        // The timeline defines its own order, so any client supplied sort is ignored
+        Pageable page = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+
+        List<Long> pulledAuthorIds = pulledAuthorIds(userId);
+        if (pulledAuthorIds.isEmpty()) {
+            return timelineEntryRepository.findPostIdsByUserId(userId, page);
+        }
+        int branchLimit = Math.toIntExact(Math.min(Integer.MAX_VALUE, page.getOffset() + page.getPageSize()));
+        List<Long> postIds = timelineEntryRepository.findMergedPostIds(
+                userId, pulledAuthorIds, branchLimit, page.getOffset(), page.getPageSize());
+        return PageableExecutionUtils.getPage(postIds, page, () -> countTimeline(userId, pulledAuthorIds));
+    }
+
+    /**
+     * Keyset read of the timeline: the (createdAt, postId) keys of up to {@code limit}
+     * posts ordered strictly after {@code cursor}. Timeline entries and posts of
+     * pulled-on-read authors are both keyset-ordered, so they are merged in memory.
+     */
+    public List<Cursor> getTimelineKeysBefore(Long userId, Cursor cursor, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        List<Cursor> keys = toKeys(timelineEntryRepository.findEntriesBefore(
+                userId, cursor.getCreatedAt(), cursor.getId(), page));
+
+        List<Long> pulledAuthorIds = pulledAuthorIds(userId);
+        if (!pulledAuthorIds.isEmpty()) {
+            keys.addAll(toKeys(postRepository.findPostKeysByAuthorsBefore(
+                    pulledAuthorIds, cursor.getCreatedAt(), cursor.getId(), page)));
+            keys = keys.stream()
+                    .distinct()
+                    .sorted(Comparator.comparing(Cursor::getCreatedAt).thenComparingLong(Cursor::getId).reversed())
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+        return keys;
+    }
+
+    public long countTimeline(Long userId) {
+        return countTimeline(userId, pulledAuthorIds(userId));
+    }
+
+    private long countTimeline(Long userId, List<Long> pulledAuthorIds) {
+        long count = timelineEntryRepository.countByUserId(userId);
+        return pulledAuthorIds.isEmpty() ? count : count + postRepository.countByUserIdIn(pulledAuthorIds);
+    }
+
+    public List<Post> loadPosts(List<Cursor> keys) {
+        return loadInOrder(keys.stream().map(Cursor::getId).collect(Collectors.toList()));
+    }
+
+    @Transactional
+    public void fanOut(Post post) {
+        User author = post.getUser();
+        if (isPulledOnRead(author)) {
+            log.debug("Skipping fan-out of post {} for high-follower author {}", post.getId(), author.getId());
+            return;
+        }
+        int inserted = timelineEntryRepository.fanOutToFollowers(post.getId(), author.getId(), post.getCreatedAt());
+        log.debug("Fanned out post {} to {} timelines", post.getId(), inserted);
+    }
+
+    @Transactional
+    public void onFollow(Long followerId, User followed) {
+        if (!isPulledOnRead(followed)) {
+            timelineEntryRepository.backfillFromAuthor(followerId, followed.getId(), backfillSize);
+        }
+    }
+
+    @Transactional
+    public void onUnfollow(Long followerId, Long followedId) {
+        timelineEntryRepository.deleteByUserIdAndAuthorId(followerId, followedId);
+    }
+
+    @Transactional
+    public void removePost(Long postId) {
+        timelineEntryRepository.deleteByPostId(postId);
+    }
+
+    @Scheduled(initialDelayString = "${timeline.trim-initial-delay-ms:300000}",
+            fixedDelayString = "${timeline.trim-interval-ms:900000}")
+    @Transactional
+    public void trimTimelines() {
+        int removed = timelineEntryRepository.trimToLength(maxLength);
+        if (removed > 0) {
+            log.info("Trimmed {} timeline entries beyond {} per user", removed, maxLength);
+        }
+    }
+
+    private boolean isPulledOnRead(User author) {
+        return author.getFollowersCount() > fanOutMaxFollowers;
+    }
+
+    // Followed authors whose posts are merged in at read time rather than fanned out
+    private List<Long> pulledAuthorIds(Long userId) {
+        return Arrays.stream(followGraph.getFollowingIds(userId))
+                .filter(authorId -> followGraph.getFollowerCount(authorId) > fanOutMaxFollowers)
+                .boxed()
+                .collect(Collectors.toList());
+    }
+
+    private List<Cursor> toKeys(List<Object[]> rows) {
+        List<Cursor> keys = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            keys.add(new Cursor((LocalDateTime) row[1], ((Number) row[0]).longValue()));
+        }
+        return keys;
+    }
+
+    private List<Post> loadInOrder(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return List.of();
+        }
+        return IdOrder.inIdOrder(postIds, postRepository.findByIdIn(postIds), Post::getId);
+    }
+}
@@ -3,23 +3,29 @@ package com.skillshare.platform.demo.service;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.skillshare.platform.demo.dto.Cursor;
 import com.skillshare.platform.demo.dto.UserDTO;
+import com.skillshare.platform.demo.dto.UserSummaryDTO;
+import com.skillshare.platform.demo.dto.response.CursorPage;
 import com.skillshare.platform.demo.exception.ResourceNotFoundException;
 import com.skillshare.platform.demo.model.User;
-import com.skillshare.platform.demo.repository.StoryRepository;
 import com.skillshare.platform.demo.repository.UserRepository;
+import com.skillshare.platform.demo.security.TokenVerificationCache;
+import com.skillshare.platform.demo.util.IdOrder;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,10 +35,18 @@ public class UserService implements UserDetailsService {
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     private final UserRepository userRepository;
-    private final StoryRepository storyRepository;
-
-    // The root upload directory (change this to your desired location)
-    private static final String UPLOAD_ROOT_DIR = "/Users/pereraw.b.n/PAF project/uploads/";
+    private final ActiveStoryIndex activeStoryIndex;
+    private final TimelineService timelineService;
+    private final SearchIndexService searchIndexService;
+    private final TokenVerificationCache tokenVerificationCache;
+    private final FollowGraph followGraph;
+    private final SuggestionService suggestionService;
+    private final FileStorageService fileStorageService;
+    private final ImageDerivativeService imageDerivativeService;
+    private final DtoCache dtoCache;
+    private final TransactionTemplate transactionTemplate;
+
+    private static final int SEARCH_RESULT_LIMIT = 50;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -41,29 +55,58 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
     }
 
+    // The profile is cached once for all viewers; follow counts and story status come from the in-memory indexes
     public UserDTO getUserByUsername(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username));
-        boolean hasActiveStories = hasActiveStories(user.getId());
-        return UserDTO.fromUser(user, false, hasActiveStories);
+        UserDTO userDTO = dtoCache.get(DtoCache.Region.USER, username, UserDTO.class, () -> UserDTO.fromUser(
+                userRepository.findByUsername(username)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username))));
+        userDTO.setFollowersCount(followGraph.getFollowerCount(userDTO.getId()));
+        userDTO.setFollowingCount(followGraph.getFollowingCount(userDTO.getId()));
+        userDTO.setHasActiveStories(hasActiveStories(userDTO.getId()));
+        return userDTO;
     }
 
     public List<UserDTO> searchUsers(String query) {
-        return userRepository.searchUsers(query).stream()
+        List<Long> userIds = searchIndexService.search(
+                SearchIndexService.DocumentType.USER, query, PageRequest.of(0, SEARCH_RESULT_LIMIT)).getContent();
+        return IdOrder.inIdOrder(userIds, userRepository.findByIdIn(userIds), User::getId).stream()
                 .map(user -> UserDTO.fromUser(user, false, hasActiveStories(user.getId())))
                 .collect(Collectors.toList());
     }
 
-    public List<UserDTO> getSuggestedUsers(int limit) {
-        return userRepository.findTopUsersByFollowers(limit).stream()
+    public List<UserDTO> getSuggestedUsers(Long currentUserId, int limit) {
+        List<Long> userIds = suggestionService.getSuggestedUserIds(currentUserId, limit);
+        return IdOrder.inIdOrder(userIds, userRepository.findByIdIn(userIds), User::getId).stream()
                 .map(user -> UserDTO.fromUser(user, false, hasActiveStories(user.getId())))
                 .collect(Collectors.toList());
     }
 
-    @Transactional
+    // Not transactional: new images are stored first, so no connection is held while they are written
     public UserDTO updateUser(Long id, UserDTO userDTO, MultipartFile profileImage, MultipartFile coverImage) throws IOException {
+        List<String> storedUrls = new ArrayList<>();
+        try {
+            String avatarUrl = storeImage(profileImage, storedUrls);
+            String coverImageUrl = storeImage(coverImage, storedUrls);
+            return transactionTemplate.execute(status -> saveUser(id, userDTO, avatarUrl, coverImageUrl));
+        } catch (IOException | RuntimeException e) {
+            storedUrls.forEach(this::discardFile);
+            throw e;
+        }
+    }
+
+    private String storeImage(MultipartFile image, List<String> storedUrls) throws IOException {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        String url = fileStorageService.storeFile(image);
+        storedUrls.add(url);
+        return url;
+    }
+
+    private UserDTO saveUser(Long id, UserDTO userDTO, String avatarUrl, String coverImageUrl) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        dtoCache.evict(DtoCache.Region.USER, user.getUsername());
 
         // Update user fields
         if (userDTO.getUsername() != null && !userDTO.getUsername().isEmpty())
@@ -81,49 +124,39 @@ public class UserService implements UserDetailsService {
         if (userDTO.getLocation() != null)
             user.setLocation(userDTO.getLocation());
 
-        // Handle profile image upload
-        if (profileImage != null && !profileImage.isEmpty()) {
-            String profileImageUrl = uploadFile(profileImage, "profile-images");
-            user.setAvatarUrl(profileImageUrl);
+        // Replaced images are released once the update commits
+        if (avatarUrl != null) {
+            releaseFile(user.getAvatarUrl());
+            user.setAvatarUrl(avatarUrl);
+            imageDerivativeService.generateVariants(avatarUrl);
         }
 
-        // Handle cover image upload
-        if (coverImage != null && !coverImage.isEmpty()) {
-            String coverImageUrl = uploadFile(coverImage, "cover-images");
+        if (coverImageUrl != null) {
+            releaseFile(user.getCoverImage());
             user.setCoverImage(coverImageUrl);
+            imageDerivativeService.generateVariants(coverImageUrl);
         }
 
         // Save updated user
         user = userRepository.save(user);
+        dtoCache.evict(DtoCache.Region.USER, user.getUsername());
+        searchIndexService.indexUser(user);
+        tokenVerificationCache.invalidateUser(user.getId());
         return UserDTO.fromUser(user, false, hasActiveStories(user.getId()));
     }
 
-    private String uploadFile(MultipartFile file, String folder) throws IOException {
-        // Define the path to store the files
-        String uploadDir = UPLOAD_ROOT_DIR + folder + "/";
-        Path path = Paths.get(uploadDir);
-
-        // Log the upload directory for debugging purposes
-        logger.info("Upload directory: {}", uploadDir);
-
-        // Check if directory exists, if not create it
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-            logger.info("Created directory: {}", uploadDir);
+    private void releaseFile(String fileUrl) {
+        if (fileUrl != null && !fileUrl.isEmpty()) {
+            discardFile(fileUrl);
         }
+    }
 
-        // Generate a unique filename using current timestamp
-        String filename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-        Path filePath = path.resolve(filename);
-
-        // Log the file path for debugging purposes
-        logger.info("Saving file to: {}", filePath);
-
-        // Save the file to the directory
-        file.transferTo(filePath.toFile());
-
-        // Return the relative URL for the uploaded file
-        return "/uploads/" + folder + "/" + filename;
+    private void discardFile(String fileUrl) {
+        try {
+            fileStorageService.deleteFile(fileUrl);
+        } catch (IOException e) {
+            logger.warn("Could not release file {}: {}", fileUrl, e.getMessage());
+        }
     }
 
     @Transactional
@@ -131,56 +164,108 @@ public class UserService implements UserDetailsService {
         if (currentUserId.equals(targetUserId))
             throw new IllegalArgumentException("You cannot follow yourself");
 
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
-
         User targetUser = userRepository.findById(targetUserId)
                 .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
 
-        // Add current user to target user's followers list
-        targetUser.getFollowers().add(currentUser);
-        userRepository.save(targetUser);
+        // Insert the join row directly instead of loading and rewriting the follower set
+        if (userRepository.insertFollow(targetUserId, currentUserId) > 0) {
+            userRepository.adjustFollowersCount(targetUserId, 1);
+            userRepository.adjustFollowingCount(currentUserId, 1);
+            timelineService.onFollow(currentUserId, targetUser);
+            followGraph.followed(currentUserId, targetUserId);
+        }
     }
 
     @Transactional
     public void unfollowUser(Long currentUserId, Long targetUserId) {
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
-
-        User targetUser = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
-
-        // Remove current user from target user's followers list
-        targetUser.getFollowers().remove(currentUser);
-        userRepository.save(targetUser);
+        if (!userRepository.existsById(targetUserId))
+            throw new ResourceNotFoundException("Target user not found");
+
+        if (userRepository.deleteFollow(targetUserId, currentUserId) > 0) {
+            userRepository.adjustFollowersCount(targetUserId, -1);
+            userRepository.adjustFollowingCount(currentUserId, -1);
+            timelineService.onUnfollow(currentUserId, targetUserId);
+            followGraph.unfollowed(currentUserId, targetUserId);
+        }
     }
 
     public boolean isFollowing(Long currentUserId, Long targetUserId) {
-        User currentUser = userRepository.findById(currentUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
-        User targetUser = userRepository.findById(targetUserId)
-                .orElseThrow(() -> new ResourceNotFoundException("Target user not found"));
-        return targetUser.getFollowers().contains(currentUser);
+        return followGraph.isFollowing(currentUserId, targetUserId);
+    }
+
+    // Sets the isFollowing flag of every user in the list from the in-memory follow graph
+    public <T extends Collection<UserDTO>> T applyFollowStatus(Long currentUserId, T users) {
+        if (currentUserId == null || users.isEmpty()) {
+            return users;
+        }
+        Set<Long> followedIds = followGraph.followedAmong(
+                currentUserId, users.stream().map(UserDTO::getId).collect(Collectors.toList()));
+        users.forEach(user -> user.setFollowing(followedIds.contains(user.getId())));
+        return users;
     }
 
     public List<UserDTO> getFollowers(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return user.getFollowers().stream()
-                .map(follower -> UserDTO.fromUser(follower, false, hasActiveStories(follower.getId())))
-                .collect(Collectors.toList());
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+        return loadUsers(followGraph.getFollowerIds(userId));
     }
 
     public List<UserDTO> getFollowing(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-        return user.getFollowing().stream()
-                .map(following -> UserDTO.fromUser(following, false, hasActiveStories(following.getId())))
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+        return loadUsers(followGraph.getFollowingIds(userId));
+    }
+
+    public CursorPage<UserSummaryDTO> getFollowersByCursor(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+        return pageSummaries(followGraph.getFollowerIds(userId), cursor, size);
+    }
+
+    public CursorPage<UserSummaryDTO> getFollowingByCursor(Long userId, String cursor, int size) {
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+        return pageSummaries(followGraph.getFollowingIds(userId), cursor, size);
+    }
+
+    // Pages through a sorted id array from the follow graph and loads only that page's summaries
+    private CursorPage<UserSummaryDTO> pageSummaries(long[] ids, String cursor, int size) {
+        long afterId = Cursor.decodeId(cursor);
+        int position = Arrays.binarySearch(ids, afterId);
+        int from = position >= 0 ? position + 1 : -position - 1;
+        int to = Math.min(from + size, ids.length);
+
+        List<Long> pageIds = Arrays.stream(ids, from, to).boxed().collect(Collectors.toList());
+        List<UserSummaryDTO> summaries = pageIds.isEmpty()
+                ? new ArrayList<>()
+                : userRepository.findSummariesByIdIn(pageIds);
+        boolean hasNext = to < ids.length;
+        return CursorPage.<UserSummaryDTO>builder()
+                .content(summaries)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? Cursor.encodeId(ids[to - 1]) : null)
+                .totalElements((long) ids.length)
+                .build();
+    }
+
+    // Users who follow the given user and are followed back by them
+    public List<UserDTO> getMutualFollows(Long userId) {
+        if (!userRepository.existsById(userId))
+            throw new ResourceNotFoundException("User not found");
+        return loadUsers(followGraph.getMutualFollowIds(userId));
+    }
+
+    private List<UserDTO> loadUsers(long[] userIds) {
+        if (userIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return userRepository.findByIdIn(Arrays.stream(userIds).boxed().collect(Collectors.toList())).stream()
+                .map(user -> UserDTO.fromUser(user, false, hasActiveStories(user.getId())))
                 .collect(Collectors.toList());
     }
 
     private boolean hasActiveStories(Long userId) {
-        return !storyRepository.findByUserIdAndExpiresAtAfterOrderByCreatedAtDesc(
-                userId, LocalDateTime.now()).isEmpty();
+        return activeStoryIndex.hasActiveStories(userId);
     }
 }
@@ -0,0 +1,19 @@
+package com.skillshare.platform.demo.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class IdOrder {
+
+    private IdOrder() {
+    }
+
+    // Reorders entities loaded with an IN query to match an ordered list of ids, dropping ids that were not found
+    public static <T> List<T> inIdOrder(List<Long> ids, List<T> entities, Function<T, Long> idOf) {
+        Map<Long, T> byId = entities.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+}
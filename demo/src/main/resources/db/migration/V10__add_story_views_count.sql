@@ -0,0 +1,7 @@
+-- Denormalized view counter so rendering a story never counts story_viewers rows
+ALTER TABLE stories ADD COLUMN views_count INT NOT NULL DEFAULT 0;
+
+UPDATE stories s SET views_count = (SELECT COUNT(*) FROM story_viewers v WHERE v.story_id = s.id);
+
+-- Backs the per-viewer "viewed by me" lookup
+CREATE INDEX idx_story_viewers_user ON story_viewers (user_id, story_id);
@@ -0,0 +1,10 @@
+-- Stored topic counters so toggling a topic updates progress arithmetically instead of recounting
+ALTER TABLE learning_plans
+    ADD COLUMN total_topics INT NOT NULL DEFAULT 0,
+    ADD COLUMN completed_topics INT NOT NULL DEFAULT 0;
+
+UPDATE learning_plans p SET
+    total_topics = (SELECT COUNT(*) FROM learning_plan_topics t WHERE t.learning_plan_id = p.id),
+    completed_topics = (SELECT COUNT(*) FROM learning_plan_topics t WHERE t.learning_plan_id = p.id AND t.completed = true);
+
+UPDATE learning_plans SET progress = IF(total_topics > 0, completed_topics * 100 DIV total_topics, 0);
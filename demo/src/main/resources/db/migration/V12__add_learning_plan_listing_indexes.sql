@@ -0,0 +1,3 @@
+-- Backs the paged "plans by user" and "all plans, newest first" listings
+CREATE INDEX idx_learning_plans_user_created ON learning_plans (user_id, created_at);
+CREATE INDEX idx_learning_plans_created ON learning_plans (created_at);
@@ -0,0 +1,8 @@
+-- Content-addressed media files and how many posts, stories and profiles reference each one
+CREATE TABLE IF NOT EXISTS media_blobs (
+    storage_key VARCHAR(100) PRIMARY KEY,
+    sha256 CHAR(64) NOT NULL,
+    size BIGINT NOT NULL,
+    ref_count INT NOT NULL DEFAULT 0,
+    created_at DATETIME(6) NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Widths of the resized copies generated by ImageDerivativeService
+ALTER TABLE media ADD COLUMN variant_widths VARCHAR(64);
+
+-- Variants are recorded for every post sharing a stored file, looked up by URL
+CREATE INDEX idx_media_url ON media (url);
@@ -0,0 +1,17 @@
+-- Denormalized counters so rendering a post or user never loads the underlying rows
+ALTER TABLE posts
+    ADD COLUMN likes_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN comments_count INT NOT NULL DEFAULT 0;
+
+ALTER TABLE users
+    ADD COLUMN followers_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN following_count INT NOT NULL DEFAULT 0;
+
+-- Backfill from the source tables
+UPDATE posts p SET
+    likes_count = (SELECT COUNT(*) FROM likes l WHERE l.post_id = p.id),
+    comments_count = (SELECT COUNT(*) FROM comments c WHERE c.post_id = p.id);
+
+UPDATE users u SET
+    followers_count = (SELECT COUNT(*) FROM user_followers uf WHERE uf.followed_id = u.id),
+    following_count = (SELECT COUNT(*) FROM user_followers uf WHERE uf.follower_id = u.id);
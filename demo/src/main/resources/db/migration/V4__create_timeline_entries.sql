@@ -0,0 +1,18 @@
+-- Materialized home timelines (fan-out-on-write)
+CREATE TABLE IF NOT EXISTS timeline_entries (
+    user_id BIGINT NOT NULL,
+    post_id BIGINT NOT NULL,
+    author_id BIGINT NOT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id, post_id),
+    INDEX idx_timeline_user_created (user_id, created_at, post_id),
+    INDEX idx_timeline_post (post_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+);
+
+-- Seed every follower's timeline with the posts of the accounts they already follow
+INSERT IGNORE INTO timeline_entries (user_id, post_id, author_id, created_at)
+SELECT uf.follower_id, p.id, p.user_id, p.created_at
+FROM user_followers uf
+JOIN posts p ON p.user_id = uf.followed_id;
@@ -0,0 +1,4 @@
+-- Composite indexes backing (created_at, id) keyset pagination
+CREATE INDEX idx_comments_post_created ON comments (post_id, created_at, id);
+CREATE INDEX idx_notifications_user_created ON notifications (user_id, created_at, id);
+CREATE INDEX idx_posts_user_created ON posts (user_id, created_at, id);
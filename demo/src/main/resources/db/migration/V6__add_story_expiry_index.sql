@@ -0,0 +1,2 @@
+-- Lets the expired-story reaper read the oldest expired rows in (expires_at, id) order straight from the index
+CREATE INDEX idx_stories_expires_id ON stories (expires_at, id);
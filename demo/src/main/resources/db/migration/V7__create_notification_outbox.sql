@@ -0,0 +1,10 @@
+-- Notification events waiting to be coalesced and delivered by the background dispatcher
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient_id BIGINT NOT NULL,
+    actor_id BIGINT NOT NULL,
+    actor_name VARCHAR(255) NOT NULL,
+    type VARCHAR(255) NOT NULL,
+    reference_id BIGINT,
+    created_at DATETIME(6) NOT NULL
+);
@@ -0,0 +1,2 @@
+-- Covers the unread badge count and the bulk mark-all-read UPDATE
+CREATE INDEX idx_notifications_user_read ON notifications (user_id, is_read);
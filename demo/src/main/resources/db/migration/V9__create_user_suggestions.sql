@@ -0,0 +1,14 @@
+-- Per-user "who to follow" candidates, refreshed periodically by SuggestionService
+CREATE TABLE IF NOT EXISTS user_suggestions (
+    user_id BIGINT NOT NULL,
+    suggested_user_id BIGINT NOT NULL,
+    score DOUBLE NOT NULL,
+    computed_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (user_id, suggested_user_id),
+    INDEX idx_suggestions_user_score (user_id, score),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (suggested_user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Cold-start fallback: most followed accounts, read from the denormalized counter
+CREATE INDEX idx_users_followers_count ON users (followers_count);
@@ -0,0 +1,44 @@
+package com.skillshare.platform.demo.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorTest {
+
+    @Test
+    void roundTripsWithMicrosecondPrecision() {
+        Cursor cursor = new Cursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_456_000), 42L);
+
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsTimesBeforeTheEpoch() {
+        Cursor cursor = new Cursor(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 500_000_000), 7L);
+
+        assertEquals(cursor, Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void blankTokenStartsAtTheFirstPage() {
+        assertSame(Cursor.start(), Cursor.decode(null));
+        assertSame(Cursor.start(), Cursor.decode(" "));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decodeId("%%%"));
+    }
+
+    @Test
+    void roundTripsIdTokens() {
+        assertEquals(123L, Cursor.decodeId(Cursor.encodeId(123L)));
+        assertEquals(Long.MIN_VALUE, Cursor.decodeId(null));
+    }
+}
@@ -0,0 +1,67 @@
+package com.skillshare.platform.demo.dto.response;
+
+import org.junit.jupiter.api.Test;
+
+import com.skillshare.platform.demo.dto.Cursor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CursorPageTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Test
+    void trimsTheExtraRowAndPointsAtTheLastReturnedRow() {
+        CursorPage<String> page = CursorPage.of(List.of(5L, 4L, 3L, 2L), 3, CursorPageTest::cursorOf,
+                CursorPageTest::toStrings, null);
+
+        assertEquals(List.of("5", "4", "3"), page.getContent());
+        assertTrue(page.isHasNext());
+        assertEquals(cursorOf(3L).encode(), page.getNextCursor());
+        assertEquals(3, page.getSize());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of(2L, 1L), 3, CursorPageTest::cursorOf,
+                CursorPageTest::toStrings, 2L);
+
+        assertEquals(List.of("2", "1"), page.getContent());
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+        assertEquals(2L, page.getTotalElements());
+    }
+
+    @Test
+    void exactlyFullPageHasNoCursor() {
+        CursorPage<String> page = CursorPage.of(List.of(3L, 2L, 1L), 3, CursorPageTest::cursorOf,
+                CursorPageTest::toStrings, null);
+
+        assertFalse(page.isHasNext());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void clampsRequestedSizes() {
+        assertEquals(1, CursorPage.clampSize(0));
+        assertEquals(1, CursorPage.clampSize(-5));
+        assertEquals(20, CursorPage.clampSize(20));
+        assertEquals(CursorPage.MAX_SIZE, CursorPage.clampSize(10_000));
+    }
+
+    private static Cursor cursorOf(Long id) {
+        return new Cursor(CREATED_AT, id);
+    }
+
+    private static List<String> toStrings(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,85 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import com.skillshare.platform.demo.model.Story;
+import com.skillshare.platform.demo.model.User;
+import com.skillshare.platform.demo.repository.StoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ActiveStoryIndexTest {
+
+    private static final long TICK_MILLIS = 20;
+
+    private final ActiveStoryIndex index = new ActiveStoryIndex(mock(StoryRepository.class), TICK_MILLIS, 8);
+
+    @Test
+    void listsActiveStoriesNewestFirst() {
+        LocalDateTime now = LocalDateTime.now();
+        index.storyCreated(story(1L, 10L, now.minusMinutes(2), now.plusHours(1)));
+        index.storyCreated(story(2L, 11L, now.minusMinutes(1), now.plusHours(1)));
+        index.storyCreated(story(3L, 12L, now.minusMinutes(3), now.plusHours(1)));
+
+        assertEquals(List.of(2L, 1L), index.getActiveStoryIds(List.of(10L, 11L)));
+        assertTrue(index.hasActiveStories(12L));
+        assertFalse(index.hasActiveStories(13L));
+    }
+
+    @Test
+    void ignoresStoriesThatHaveAlreadyExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        index.storyCreated(story(1L, 10L, now.minusDays(1), now.minusHours(1)));
+
+        assertFalse(index.hasActiveStories(10L));
+    }
+
+    @Test
+    void hidesStoriesOnceTheyExpireEvenBeforeTheWheelTicks() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        index.storyCreated(story(1L, 10L, now, now.plusNanos(100_000_000)));
+        assertTrue(index.hasActiveStories(10L));
+
+        Thread.sleep(150);
+        assertFalse(index.hasActiveStories(10L));
+        assertEquals(List.of(), index.getActiveStoryIds(List.of(10L)));
+    }
+
+    @Test
+    void wheelEvictsOnlyStoriesWhoseTickHasCome() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        index.storyCreated(story(1L, 10L, now, now.plusNanos(60_000_000)));
+        // More than one rotation of the wheel away, so it shares slots with nearer ticks
+        index.storyCreated(story(2L, 11L, now, now.plusHours(1)));
+
+        Thread.sleep(120);
+        index.advance();
+
+        assertFalse(index.hasActiveStories(10L));
+        assertEquals(List.of(2L), index.getActiveStoryIds(List.of(10L, 11L)));
+    }
+
+    @Test
+    void removesDeletedStories() {
+        LocalDateTime now = LocalDateTime.now();
+        index.storyCreated(story(1L, 10L, now, now.plusHours(1)));
+        index.storyDeleted(1L);
+
+        assertFalse(index.hasActiveStories(10L));
+    }
+
+    private static Story story(Long id, Long authorId, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        return Story.builder()
+                .id(id)
+                .user(User.builder().id(authorId).build())
+                .createdAt(createdAt)
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FollowGraphTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<long[]> edges = new ArrayList<>();
+    // Runs in the middle of the first scan, standing in for a follow committed while the graph loads
+    private Runnable duringScan = () -> { };
+
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            boolean byFollower = sql.startsWith("SELECT follower_id");
+            List<long[]> rows = new ArrayList<>();
+            for (long[] edge : edges) {
+                rows.add(byFollower ? new long[]{edge[0], edge[1]} : new long[]{edge[1], edge[0]});
+            }
+            rows.sort(Comparator.<long[]>comparingLong(row -> row[0]).thenComparingLong(row -> row[1]));
+            for (int i = 0; i < rows.size(); i++) {
+                handler.processRow(resultSet(rows.get(i)));
+                if (byFollower && i == 0) {
+                    duringScan.run();
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        graph = new FollowGraph(jdbcTemplate);
+    }
+
+    @Test
+    void loadsBothDirectionsSorted() {
+        follow(1, 3);
+        follow(1, 2);
+        follow(2, 1);
+        follow(3, 1);
+        graph.load();
+
+        assertArrayEquals(new long[]{2, 3}, graph.getFollowingIds(1L));
+        assertArrayEquals(new long[]{2, 3}, graph.getFollowerIds(1L));
+        assertTrue(graph.isFollowing(1L, 3L));
+        assertFalse(graph.isFollowing(2L, 3L));
+        assertEquals(2, graph.getFollowerCount(1L));
+        assertEquals(0, graph.getFollowingCount(4L));
+    }
+
+    @Test
+    void insertsAndRemovesKeepingOrder() {
+        graph.load();
+        graph.followed(1L, 5L);
+        graph.followed(1L, 2L);
+        graph.followed(1L, 9L);
+        graph.followed(1L, 5L);
+
+        assertArrayEquals(new long[]{2, 5, 9}, graph.getFollowingIds(1L));
+        assertArrayEquals(new long[]{1}, graph.getFollowerIds(5L));
+
+        graph.unfollowed(1L, 5L);
+        graph.unfollowed(1L, 7L);
+        assertArrayEquals(new long[]{2, 9}, graph.getFollowingIds(1L));
+        assertArrayEquals(new long[0], graph.getFollowerIds(5L));
+        assertFalse(graph.getUserIds().contains(5L));
+    }
+
+    @Test
+    void intersectsFollowingAndFollowers() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(1, 4);
+        follow(3, 1);
+        follow(4, 1);
+        follow(5, 1);
+        graph.load();
+
+        assertArrayEquals(new long[]{3, 4}, graph.getMutualFollowIds(1L));
+        assertArrayEquals(new long[0], graph.getMutualFollowIds(2L));
+    }
+
+    @Test
+    void keepsChangesCommittedDuringLoad() {
+        follow(1, 2);
+        follow(3, 4);
+        duringScan = () -> {
+            graph.followed(7L, 8L);
+            graph.unfollowed(3L, 4L);
+        };
+        graph.load();
+
+        assertTrue(graph.isFollowing(7L, 8L));
+        assertArrayEquals(new long[]{7}, graph.getFollowerIds(8L));
+        assertFalse(graph.isFollowing(3L, 4L));
+        assertTrue(graph.isFollowing(1L, 2L));
+    }
+
+    @Test
+    void reloadReplacesTheGraph() {
+        follow(1, 2);
+        graph.load();
+        edges.clear();
+        follow(2, 3);
+        graph.load();
+
+        assertFalse(graph.isFollowing(1L, 2L));
+        assertTrue(graph.isFollowing(2L, 3L));
+    }
+
+    private void follow(long followerId, long followedId) {
+        edges.add(new long[]{followerId, followedId});
+    }
+
+    private static ResultSet resultSet(long[] row) throws SQLException {
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenReturn(row[0]);
+        when(resultSet.getLong(2)).thenReturn(row[1]);
+        return resultSet;
+    }
+}
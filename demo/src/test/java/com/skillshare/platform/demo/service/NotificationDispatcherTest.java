@@ -0,0 +1,108 @@
+package com.skillshare.platform.demo.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.skillshare.platform.demo.model.NotificationOutboxEntry;
+import com.skillshare.platform.demo.model.NotificationType;
+import com.skillshare.platform.demo.repository.NotificationOutboxRepository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final NotificationOutboxRepository outboxRepository = mock(NotificationOutboxRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final NotificationStreamService notificationStreamService = mock(NotificationStreamService.class);
+    private final NotificationDispatcher dispatcher = new NotificationDispatcher(
+            outboxRepository, jdbcTemplate, new ChangeVersions(1000), notificationStreamService);
+
+    @Test
+    void coalescesEventsPerRecipientTypeAndPost() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        when(outboxRepository.lockOldest(100)).thenReturn(List.of(
+                entry(1L, 1L, 10L, "alice", NotificationType.LIKE, 100L),
+                entry(2L, 1L, 11L, "bob", NotificationType.LIKE, 100L),
+                entry(3L, 1L, 12L, "carol", NotificationType.LIKE, 100L),
+                // The same actor again does not count twice
+                entry(4L, 1L, 12L, "carol", NotificationType.LIKE, 100L),
+                entry(5L, 1L, 10L, "alice", NotificationType.COMMENT, 100L),
+                entry(6L, 1L, 10L, "alice", NotificationType.LIKE, 200L),
+                entry(7L, 2L, 11L, "bob", NotificationType.FOLLOW, null),
+                entry(8L, 2L, 13L, "dave", NotificationType.FOLLOW, null)));
+
+        dispatcher.dispatch();
+
+        assertEquals(List.of(
+                "carol and 2 others liked your post",
+                "alice commented on your post",
+                "alice liked your post",
+                "dave and 1 other started following you"), insertedMessages());
+        verify(outboxRepository).deleteByIds(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L));
+        verify(notificationStreamService).publish(List.of(1L, 2L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void doesNothingWhenTheOutboxIsEmpty() {
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        when(outboxRepository.lockOldest(100)).thenReturn(List.of());
+
+        dispatcher.dispatch();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), any(Collection.class), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        verify(outboxRepository, never()).deleteByIds(any());
+    }
+
+    // Replays the captured batch against a mock statement and collects the message column
+    @SuppressWarnings("unchecked")
+    private List<String> insertedMessages() throws Exception {
+        ArgumentCaptor<Collection<Object>> rows = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<ParameterizedPreparedStatementSetter<Object>> setter =
+                ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), rows.capture(), anyInt(), setter.capture());
+
+        List<String> messages = new ArrayList<>();
+        for (Object row : rows.getValue()) {
+            PreparedStatement statement = mock(PreparedStatement.class);
+            setter.getValue().setValues(statement, row);
+            ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+            verify(statement).setString(eq(2), message.capture());
+            messages.add(message.getValue());
+        }
+        return messages;
+    }
+
+    private static NotificationOutboxEntry entry(Long id, Long recipientId, Long actorId, String actorName,
+                                                 NotificationType type, Long referenceId) {
+        return NotificationOutboxEntry.builder()
+                .id(id)
+                .recipientId(recipientId)
+                .actorId(actorId)
+                .actorName(actorName)
+                .type(type)
+                .referenceId(referenceId)
+                .createdAt(NOW.plusSeconds(id))
+                .build();
+    }
+}